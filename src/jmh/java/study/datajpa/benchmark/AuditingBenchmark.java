@@ -0,0 +1,84 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BatchSaveResult;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// audit 모드별 insert 처리량 (1건당 시간)
+// off: audit X, exact: 엔티티마다 LocalDateTime.now(), coarse: 10ms 단위 시각 재사용
+// saveAll은 엔티티마다 audit 값을 구하고, saveAllBatched는 배치 전체에 한 번만 구함
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4) // 여러 스레드가 동시에 insert 할 때의 경합 포함
+@Fork(1)
+public class AuditingBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"off", "exact", "coarse"})
+    public String audit;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:audit-benchmark;DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "datajpa.audit.enabled=" + !audit.equals("off"),
+                        "datajpa.audit.clock-granularity=" + (audit.equals("coarse") ? "10ms" : "0ms"))
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Member> saveAll() {
+        return memberRepository.saveAll(IntStream.range(0, BATCH)
+                .mapToObj(i -> new Member("audit", 0))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public BatchSaveResult saveAllBatched() {
+        return memberRepository.saveAllBatched(IntStream.range(0, BATCH)
+                .mapToObj(i -> new Member("audit", 0)));
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// 관리 중인 회원 10,000명 중 일부만 수정했을 때 flush 시간
+// 바이트코드 향상 전후 비교 : ./gradlew jmh -PjmhIncludes=FlushBenchmark -PhibernateEnhance=false 와 기본(향상) 실행 결과 비교
+// 향상 X : flush 때마다 모든 엔티티를 스냅샷과 필드 단위로 비교, 향상 O : 변경된 엔티티만 확인
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushBenchmark {
+
+    private static final int MEMBERS = 10_000;
+
+    @Param({"0", "0.01"})
+    public double dirtyRatio;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:flush-benchmark;DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "datajpa.persistence-context.warn-threshold=" + (MEMBERS * 2))
+                .run();
+        emf = context.getBean(EntityManagerFactory.class);
+        context.getBean(MemberRepository.class).saveAllBatched(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new Member("flush" + i, i % 100)));
+        System.out.println("bytecode enhancement = " + ManagedEntity.class.isAssignableFrom(Member.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 측정 대상은 flush뿐이므로 조회와 수정은 매번 미리 해둠
+    @Setup(Level.Invocation)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        int dirty = (int) (members.size() * dirtyRatio);
+        for (int i = 0; i < dirty; i++) {
+            Member member = members.get(i * (members.size() / dirty));
+            member.setAge(member.getAge() + 1);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        em.getTransaction().rollback(); // 다음 측정도 같은 데이터로
+        em.close();
+    }
+
+    @Benchmark
+    public EntityManager flush() {
+        em.flush();
+        return em;
+    }
+}
@@ -0,0 +1,120 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.BatchSaveResult;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// 임베디드 인메모리 H2로 스프링 컨텍스트를 띄워서 리포지토리 주요 경로를 측정
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int MEMBERS = 1_000;
+    private static final int TEAMS = 10;
+    private static final int BATCH = 100;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    private long minId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+
+        List<Team> teams = teamRepository.saveAll(IntStream.range(0, TEAMS)
+                .mapToObj(i -> new Team("team" + i))
+                .collect(Collectors.toList()));
+        memberRepository.saveAllBatched(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new Member("member" + i, i % 100, teams.get(i % TEAMS))));
+        minId = memberRepository.findByUsername("member0").getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Member> findById() {
+        return memberRepository.findById(minId + ThreadLocalRandom.current().nextInt(MEMBERS));
+    }
+
+    @Benchmark
+    public Member findByUsername() {
+        return memberRepository.findByUsername("member" + ThreadLocalRandom.current().nextInt(MEMBERS));
+    }
+
+    @Benchmark
+    public List<Member> findMemberFetchJoin() {
+        return memberRepository.findMemberFetchJoin();
+    }
+
+    @Benchmark
+    public List<Member> findAllEntityGraph() {
+        return memberRepository.findAll();
+    }
+
+    @Benchmark
+    public Page<Member> findByAgePaging() {
+        return memberRepository.findByAge(ThreadLocalRandom.current().nextInt(100), PageRequest.of(0, 5, Sort.by("username")));
+    }
+
+    @Benchmark
+    public Member saveSingle() {
+        return memberRepository.save(new Member("single", 0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH) // 결과는 1건당 시간
+    public BatchSaveResult saveBatched() {
+        return memberRepository.saveAllBatched(IntStream.range(0, BATCH)
+                .mapToObj(i -> new Member("batched", 0)));
+    }
+
+    @Benchmark
+    public int bulkAgePlus() {
+        return memberRepository.bulkAgePlus(50); // 50 이상은 계속 50 이상이므로 매번 같은 건수가 수정됨
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.audit;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+// 대량 insert 동안 audit 값을 한 번만 구해서 모든 엔티티에 같은 값을 넣음
+//
+// try (BatchAudit.Scope scope = BatchAudit.pin()) {
+//     members.forEach(em::persist); // 등록일/등록자가 모두 같음
+// }
+public final class BatchAudit {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private BatchAudit() {
+    }
+
+    public static Scope pin() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static Scope current() {
+        return CURRENT.get();
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Scope previous;
+        private LocalDateTime now;
+        private String auditor;
+
+        private Scope(Scope previous) {
+            this.previous = previous;
+        }
+
+        // 처음 요청될 때 한 번만 계산
+        LocalDateTime now(Supplier<LocalDateTime> clock) {
+            if (now == null) {
+                now = clock.get();
+            }
+            return now;
+        }
+
+        String auditor(Supplier<String> resolver) {
+            if (auditor == null) {
+                auditor = resolver.get();
+            }
+            return auditor;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.audit;
+
+import org.springframework.data.auditing.DateTimeProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+// 등록일/수정일에 사용할 시각
+// granularity 단위로 잘라서 캐시하므로 같은 구간 안에서는 LocalDateTime을 새로 계산하지 않음 (0이면 매번 LocalDateTime.now())
+public class CoarseDateTimeProvider implements DateTimeProvider {
+
+    private final long granularityMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+
+    public CoarseDateTimeProvider(Duration granularity) {
+        this.granularityMillis = granularity.toMillis();
+    }
+
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        BatchAudit.Scope batch = BatchAudit.current();
+        return Optional.of(batch != null ? batch.now(this::now) : now());
+    }
+
+    public LocalDateTime now() {
+        if (granularityMillis <= 0) {
+            return LocalDateTime.now();
+        }
+        long index = System.currentTimeMillis() / granularityMillis;
+        Tick current = tick;
+        if (current.index == index) {
+            return current.value;
+        }
+        // 여러 스레드가 동시에 갱신해도 같은 값을 계산하므로 동기화 X
+        LocalDateTime value = LocalDateTime.ofInstant(Instant.ofEpochMilli(index * granularityMillis), zone);
+        tick = new Tick(index, value);
+        return value;
+    }
+
+    private static class Tick {
+        private final long index;
+        private final LocalDateTime value;
+
+        private Tick(long index, LocalDateTime value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+}
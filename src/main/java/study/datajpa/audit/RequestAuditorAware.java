@@ -0,0 +1,46 @@
+package study.datajpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 등록자/수정자 (실제로는 세션의 사용자 ID를 넣음)
+// 엔티티마다 UUID.randomUUID()(SecureRandom)를 호출하지 않고 요청당 한 번만 만들어서 재사용
+public class RequestAuditorAware implements AuditorAware<String> {
+
+    private static final String ATTRIBUTE = RequestAuditorAware.class.getName() + ".AUDITOR";
+
+    // 요청 밖(배치, 비동기 스레드)에서는 스레드마다 하나
+    private static final ThreadLocal<String> THREAD_AUDITOR = ThreadLocal.withInitial(RequestAuditorAware::randomId);
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        BatchAudit.Scope batch = BatchAudit.current();
+        return Optional.of(batch != null ? batch.auditor(this::resolve) : resolve());
+    }
+
+    private String resolve() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return THREAD_AUDITOR.get();
+        }
+        String auditor = (String) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = randomId();
+            attributes.setAttribute(ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return auditor;
+    }
+
+    // 보안용 난수가 필요 없으므로 ThreadLocalRandom으로 version 4 UUID를 만듦 (경합 X)
+    static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(most, least).toString();
+    }
+}
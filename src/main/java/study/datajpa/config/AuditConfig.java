@@ -0,0 +1,29 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.audit.CoarseDateTimeProvider;
+import study.datajpa.audit.RequestAuditorAware;
+
+import java.time.Duration;
+
+// audit 기능을 사용하기 위해 필요 (datajpa.audit.enabled=false 이면 audit 컬럼을 채우지 않음)
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditDateTimeProvider")
+@ConditionalOnProperty(name = "datajpa.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditConfig {
+
+    @Bean
+    public AuditorAware<String> auditorProvider() {
+        return new RequestAuditorAware();
+    }
+
+    @Bean
+    public CoarseDateTimeProvider auditDateTimeProvider(@Value("${datajpa.audit.clock-granularity:0ms}") Duration granularity) {
+        return new CoarseDateTimeProvider(granularity);
+    }
+}
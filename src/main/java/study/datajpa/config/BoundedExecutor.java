@@ -0,0 +1,53 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// 가상 스레드 executor는 작업 수 제한이 없으므로 동시에 받을 수 있는 작업 수를 semaphore로 제한
+// 실제 DB 동시 실행 수는 커넥션 풀 크기로 제한되고, 나머지는 커넥션을 기다림
+public class BoundedExecutor implements Executor, DisposableBean {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final TaskDecorator decorator;
+
+    public BoundedExecutor(ExecutorService delegate, int maxTasks) {
+        this(delegate, maxTasks, task -> task);
+    }
+
+    public BoundedExecutor(ExecutorService delegate, int maxTasks, TaskDecorator decorator) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxTasks);
+        this.decorator = decorator;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("db executor is saturated");
+        }
+        Runnable task = decorator.decorate(command);
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// DB 작업을 요청 스레드 밖에서 실행할 때 사용하는 executor (ex. 비동기 count 쿼리)
+// 스레드마다 커넥션을 하나씩 사용하므로 기본 크기를 Hikari 커넥션 풀 크기(maximum-pool-size, 기본 10)에 맞춤
+// 풀보다 크게 잡으면 남는 스레드는 커넥션을 기다리기만 함
+@Slf4j
+@Configuration
+public class DbExecutorConfig {
+
+    // dbExecutor에서 실행 중인 작업인지 표시
+    private static final ThreadLocal<Boolean> DB_EXECUTOR_THREAD = ThreadLocal.withInitial(() -> false);
+
+    @Bean
+    public Executor dbExecutor(@Value("${datajpa.db-executor.size:${spring.datasource.hikari.maximum-pool-size:10}}") int size,
+                               @Value("${datajpa.db-executor.queue-capacity:100}") int queueCapacity,
+                               @Value("${datajpa.db-executor.virtual-threads:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                return new BoundedExecutor(virtual, size + queueCapacity, DbExecutorConfig::marked);
+            }
+            log.warn("virtual threads are not supported on Java {}, falling back to a thread pool",
+                    System.getProperty("java.version"));
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity); // 꽉 차면 RejectedExecutionException
+        executor.setThreadNamePrefix("db-");
+        executor.setTaskDecorator(DbExecutorConfig::marked);
+        return executor;
+    }
+
+    // dbExecutor 작업 안에서 다시 dbExecutor에 작업을 넣고 기다리면 풀이 꽉 찼을 때 서로를 기다리며 멈춤
+    // -> 이 경우 호출한 스레드에서 직접 실행해야 함
+    public static boolean isDbExecutorThread() {
+        return DB_EXECUTOR_THREAD.get();
+    }
+
+    private static Runnable marked(Runnable task) {
+        return () -> {
+            DB_EXECUTOR_THREAD.set(true);
+            try {
+                task.run();
+            } finally {
+                DB_EXECUTOR_THREAD.remove();
+            }
+        };
+    }
+
+    // Java 21 이상에서만 존재하는 메서드이므로 리플렉션으로 호출 (컴파일은 Java 11 기준)
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
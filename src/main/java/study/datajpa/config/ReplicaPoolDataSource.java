@@ -0,0 +1,72 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 여러 replica에 라운드 로빈으로 커넥션을 분배
+// 커넥션 획득에 실패한 replica는 retryAfter 동안 제외하고, 모든 replica가 실패하면 primary로 failover
+@Slf4j
+public class ReplicaPoolDataSource extends AbstractDataSource {
+
+    private final List<DataSource> replicas;
+    private final DataSource primary;
+    private final long retryAfterNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray downUntil; // replica별 제외 만료 시각 (System.nanoTime 기준, 0이면 정상)
+
+    public ReplicaPoolDataSource(List<DataSource> replicas, DataSource primary, Duration retryAfter) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.downUntil = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        long now = System.nanoTime();
+
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            long until = downUntil.get(index);
+            if (until != 0 && now - until < 0) {
+                continue; // 아직 제외 기간
+            }
+            try {
+                Connection connection = connect(replicas.get(index), username, password);
+                downUntil.set(index, 0);
+                return connection;
+            } catch (SQLException e) {
+                downUntil.set(index, now + retryAfterNanos);
+                log.warn("replica[{}] is unavailable, excluded for {}ms: {}", index, retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+
+        log.debug("no replica available, falling back to primary");
+        return connect(primary, username, password);
+    }
+
+    public boolean isAvailable(int index) {
+        long until = downUntil.get(index);
+        return until == 0 || System.nanoTime() - until >= 0;
+    }
+
+    private Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+}
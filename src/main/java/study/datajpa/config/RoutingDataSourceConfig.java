@@ -0,0 +1,91 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// datajpa.datasource.routing.enabled=true 일 때만 사용 (기본은 spring.datasource 하나)
+// spring.datasource = primary, datajpa.datasource.replica-urls = replica 목록 (계정/드라이버는 primary와 동일)
+// replica는 복제 지연이 있으므로 방금 쓴 데이터를 바로 읽어야 하는 곳은 readOnly 트랜잭션을 쓰지 말 것
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+@ConditionalOnProperty(name = "datajpa.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig implements DisposableBean {
+
+    // 내부에서 만든 풀은 빈이 아니므로 종료 시 직접 닫음
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    // spring.datasource.hikari.* (풀 크기, 타임아웃 등)를 바인딩해서 primary, replica 풀에 똑같이 적용
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig routingHikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 HikariConfig routingHikariConfig,
+                                 @Value("${datajpa.datasource.replica-urls:}") String[] replicaUrls,
+                                 @Value("${datajpa.datasource.replica-retry-after:30s}") Duration retryAfter) {
+        HikariDataSource primary = pool(properties, routingHikariConfig, properties.determineUrl(), "primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            if (!replicaUrls[i].isBlank()) {
+                replicas.add(pool(properties, routingHikariConfig, replicaUrls[i].trim(), "replica-" + i));
+            }
+        }
+        log.info("routing read-only transactions to {} replica(s)", replicas.size());
+
+        DataSource replicaPool = replicas.isEmpty() ? primary : new ReplicaPoolDataSource(replicas, primary, retryAfter);
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicaPool));
+    }
+
+    // 트랜잭션마다 커넥션을 새로 받아야 readOnly 라우팅이 적용됨 (OSIV에서도)
+    // 라우팅을 사용할 때만 변경하고 기본 설정(데이터소스 하나)에서는 hibernate 기본 커넥션 처리 방식 유지
+    @Bean
+    public HibernatePropertiesCustomizer routingConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, HikariConfig hikari, String url, String name) {
+        HikariDataSource dataSource = new HikariDataSource(); // 첫 커넥션 요청 때 풀 생성 (replica가 죽어 있어도 기동 가능)
+        hikari.copyStateTo(dataSource);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setPoolName(name);
+        pools.add(dataSource);
+        return dataSource;
+    }
+
+    // 테스트에서 사용
+    List<HikariDataSource> pools() {
+        return pools;
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled 작업 (ex. TeamAggregateReconciler) 실행
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "datajpa.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
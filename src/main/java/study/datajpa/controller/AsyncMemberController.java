@@ -0,0 +1,53 @@
+package study.datajpa.controller;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberLookup;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// MemberController.findMember, list와 같은 결과를 dbExecutor 에서 조회 (서블릿 스레드는 바로 반환됨)
+// dbExecutor가 꽉 차면 RejectedExecutionException -> 503 (DbExecutorExceptionHandler)
+// localhost:8080/async/members/1
+// localhost:8080/async/members?page=0&size=3
+@RestController
+public class AsyncMemberController {
+
+    private final MemberRepository memberRepository;
+    private final MemberLookup memberLookup;
+    private final Executor dbExecutor;
+    private final TransactionTemplate readOnly;
+
+    public AsyncMemberController(MemberRepository memberRepository,
+                                 MemberLookup memberLookup,
+                                 @Qualifier("dbExecutor") Executor dbExecutor,
+                                 PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.memberLookup = memberLookup;
+        this.dbExecutor = dbExecutor;
+        // OSIV는 요청 스레드에만 적용되므로 executor 스레드에서는 트랜잭션 안에서 dto 변환까지 끝냄
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @GetMapping("/async/members/{id}")
+    public CompletableFuture<String> findMember(@PathVariable("id") Long id) {
+        return CompletableFuture.supplyAsync(() -> memberLookup.findById(id).get().getUsername(), dbExecutor);
+    }
+
+    @GetMapping("/async/members")
+    public CompletableFuture<Page<MemberDto>> list(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        return CompletableFuture.supplyAsync(() -> readOnly.execute(status ->
+                memberRepository.findAll(pageable).map(MemberDto::new)), dbExecutor);
+    }
+}
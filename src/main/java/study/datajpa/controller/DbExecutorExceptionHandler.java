@@ -0,0 +1,25 @@
+package study.datajpa.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+// dbExecutor가 꽉 찼을 때 큐에서 오래 기다리게 하지 않고 바로 503으로 응답 (클라이언트는 Retry-After 후 재시도)
+@Slf4j
+@RestControllerAdvice
+public class DbExecutorExceptionHandler {
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        log.debug("db executor rejected a request: {}", e.getMessage());
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+    }
+}
@@ -3,26 +3,47 @@ package study.datajpa.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorResponse;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberLookup;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.support.PageCountExecutor;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_SIZE = 2000; // max-page-size와 동일하게 제한
+
     private final MemberRepository memberRepository;
+    private final MemberLookup memberLookup; // 같은 id를 동시에 조회하면 DB 호출을 합침
+    private final PageCountExecutor pageCountExecutor;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberLookup.findById(id).get();
         return member.getUsername();
     }
 
@@ -39,6 +60,38 @@ public class MemberController {
         Page<MemberDto> map = page.map(member -> new MemberDto(member)); // MemberDto::new
         return map;
     }
+    // 위와 같은 결과를 엔티티 없이 dto로 바로 조회 (select 절에 id, username, team.name만 포함)
+    @GetMapping("/members/dto")
+    public Page<MemberDto> listDto(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        return memberRepository.findMemberDtoAll(pageable);
+    }
+
+    // content 쿼리와 count 쿼리를 동시에 실행 (응답 시간 = 둘 중 느린 쿼리)
+    // localhost:8080/members/age/10?page=0&size=3
+    @GetMapping("/members/age/{age}")
+    public DeferredResult<Page<MemberDto>> listByAge(@PathVariable("age") int age,
+                                                     @PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        CompletableFuture<Page<MemberDto>> future = pageCountExecutor.pageAsync(pageable,
+                () -> memberRepository.findSliceByAge(age, pageable).map(MemberDto::new).getContent(),
+                () -> memberRepository.countByAge(age));
+
+        DeferredResult<Page<MemberDto>> result = new DeferredResult<>();
+        future.whenComplete((page, ex) -> {
+            if (ex == null) {
+                result.setResult(page);
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            result.setErrorResult(cause instanceof TimeoutException
+                    ? new ResponseStatusException(GATEWAY_TIMEOUT, "조회 시간이 초과되었습니다.", cause)
+                    : cause);
+        });
+        // 클라이언트 연결이 끊기거나 요청이 타임아웃 되면 남은 쿼리 취소
+        result.onError(ex -> future.cancel(true));
+        result.onTimeout(() -> future.cancel(true));
+        return result;
+    }
+
     // localhost:8080/members?page=0 : 0페이지에서 20개의 데이터를 가져옴 (id = 1 ~ 20)
     // localhost:8080/members?page=1 : 1페이지에서 20개의 데이터를 가져옴 (id = 21 ~ 40)
     // localhost:8080/members?page=0&size=3 : 0페이지에서 3개의 데이터를 가져옴 (id = 1 ~ 3)
@@ -46,10 +99,37 @@ public class MemberController {
     // Spring Data JPA가 파라미터 바인딩이 될 때 매개변수로 Pageable이 있으면 PageRequest 객체를 생성하여 그걸 가지고 값을 채워서 injection
     // @PageableDefault(size = 5, sort = "username") : 기본 설정도 가능 (한 페이지 사이즈를 20개에서 5개로 수정)
 
+    // cursor 파라미터가 있으면 keyset 페이징으로 동작 (count 쿼리 X, 페이지가 깊어져도 일정한 속도)
+    // localhost:8080/members?cursor= : 첫 페이지
+    // localhost:8080/members?cursor={nextCursor}&size=3 : 이전 응답의 nextCursor 다음부터 3개
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorResponse<MemberDto> listByCursor(@RequestParam("cursor") String cursor,
+                                                  @RequestParam(value = "size", defaultValue = "5") int size) {
+        MemberCursor memberCursor;
+        try {
+            memberCursor = MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "잘못된 cursor 값입니다.", e);
+        }
+
+        Slice<Member> slice = memberRepository.findByCursor(memberCursor, Math.max(1, Math.min(size, MAX_CURSOR_SIZE)));
+        // /members/dto와 같이 teamName까지 채움 (team은 findByCursor에서 fetch join으로 같이 조회)
+        List<MemberDto> content = slice.getContent().stream()
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeam() == null ? null : m.getTeam().getName()))
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            Member last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = new MemberCursor(last.getUsername(), last.getId()).encode();
+        }
+        return new CursorResponse<>(content, nextCursor);
+    }
+
     @PostConstruct
     public void init() {
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
-        }
+        // 한 건씩 save 하지 않고 batch insert로 저장
+        memberRepository.saveAllBatched(IntStream.range(0, 100)
+                .mapToObj(i -> new Member("user" + i, i)));
     }
 }
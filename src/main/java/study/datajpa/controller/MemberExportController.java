@@ -0,0 +1,67 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 전체 회원을 메모리에 올리지 않고 조회되는 대로 바로 응답에 씀
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // localhost:8080/members/export : 한 줄에 회원 하나씩 JSON (NDJSON)
+    // localhost:8080/members/export?format=csv : CSV
+    @Transactional(readOnly = true) // stream을 끝까지 읽을 때까지 트랜잭션(커넥션)을 유지해야 함
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+
+        PrintWriter writer = response.getWriter();
+        if (csv) {
+            writer.println("id,username,teamName");
+        }
+
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto(FETCH_SIZE)) {
+            Iterator<MemberDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                MemberDto dto = iterator.next();
+                // 응답 버퍼가 차면 클라이언트로 바로 전송되므로 메모리 사용량이 일정함
+                writer.println(csv ? toCsv(dto) : objectMapper.writeValueAsString(dto));
+            }
+        }
+        writer.flush();
+    }
+
+    private String toCsv(MemberDto dto) {
+        return dto.getId() + "," + escape(dto.getUsername()) + "," + escape(dto.getTeamName());
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    // 팀 목록 + 회원 수, 평균 나이 (회원 테이블은 조회하지 않음)
+    // localhost:8080/teams?page=0&size=3&sort=memberCount,desc
+    @GetMapping("/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 5, sort = "name") Pageable pageable) {
+        return teamRepository.findTeamDtoAll(pageable);
+    }
+}
@@ -0,0 +1,40 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// keyset 페이징에서 마지막으로 읽은 위치 (username, id)를 나타냄
+// 클라이언트에게는 encode()로 만든 불투명한 토큰만 전달
+@Getter
+public class MemberCursor {
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public String encode() {
+        // id에는 ':'가 없으므로 첫 번째 ':'를 구분자로 사용, username이 null이면 id만 넣음
+        String raw = username == null ? String.valueOf(id) : id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 빈 토큰이면 첫 페이지를 의미하므로 null 반환
+    public static MemberCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int idx = raw.indexOf(':');
+        if (idx < 0) {
+            return new MemberCursor(null, Long.valueOf(raw)); // 숫자가 아니면 NumberFormatException (IllegalArgumentException)
+        }
+        return new MemberCursor(raw.substring(idx + 1), Long.valueOf(raw.substring(0, idx)));
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamDto {
+
+    private Long id;
+    private String name;
+    private long memberCount;
+    private double averageAge;
+
+    // 조인, count 쿼리 없이 Team에 저장된 집계 값으로 생성
+    public TeamDto(Long id, String name, long memberCount, long ageSum) {
+        this.id = id;
+        this.name = name;
+        this.memberCount = memberCount;
+        this.averageAge = memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+// 청크 단위 벌크 업데이트의 진행 위치 (중간에 서버가 죽어도 마지막으로 커밋된 청크 다음부터 재시작)
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkUpdateCheckpoint {
+
+    @Id
+    private String jobName;
+    private Long lastId; // 마지막으로 처리한 청크의 끝 id
+    private long updatedRows;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public BulkUpdateCheckpoint(String jobName) {
+        this.jobName = jobName;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(long lastId, int updatedRows) {
+        this.lastId = lastId;
+        this.updatedRows += updatedRows;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // 이미 끝난 작업을 다시 실행하면 처음부터 시작
+    public void restart() {
+        this.lastId = null;
+        this.updatedRows = 0;
+        this.completed = false;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
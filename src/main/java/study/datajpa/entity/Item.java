@@ -24,6 +24,8 @@ public class Item implements Persistable<String> {
     // @GeneratedValue : GeneratedValue를 안쓰는 경우 save 시 문제 발생
     private String id;
 
+    private String name; // 외부 시스템에서 받아오는 값 (upsertAll 시 갱신)
+
     @CreatedDate
     private LocalDateTime createdDate;
 
@@ -31,6 +33,15 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    public Item(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
+
     // Persistable을 Override
     @Override
     public String getId() {
@@ -1,21 +1,38 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"), // username 조건, username + age 조건
+        @Index(name = "idx_member_age", columnList = "age"), // age만 조건 (findByAge, countByAge, bulkAgePlus)
+        @Index(name = "idx_member_team_id", columnList = "team_id") // team 조인, 팀별 회원 조회
+})
+@SequenceGenerator(
+        name = "member_seq_generator",
+        sequenceName = "member_seq",
+        allocationSize = 50) // 시퀀스를 한 번 호출할 때 50개씩 미리 확보 (pooled optimizer)
+// 쿼리 캐시는 id만 저장하므로 엔티티도 캐시해야 findByUsername이 DB를 거치지 않음
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) // 연관관계는 ToString을 하지 않는다
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    @Version // 낙관적 락 : update 시 version을 비교해서 다른 트랜잭션이 먼저 수정했으면 예외 발생
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY) // 지연 로딩 설정
     @JoinColumn(name = "team_id")
     private Team team;
@@ -39,6 +56,7 @@ public class Member extends BaseEntity {
         this.age = age;
     }
     // 연관관계 편의 메서드
+    // Team의 회원 수, 나이 합계는 flush 시점에 TeamAggregateListener가 DB에서 직접 증감
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -1,27 +1,60 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@SequenceGenerator(
+        name = "team_seq_generator",
+        sequenceName = "team_seq",
+        allocationSize = 50)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") // 거의 바뀌지 않고 회원 목록마다 조회되므로 2차 캐시에 보관
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    // 회원 수, 나이 합계 : 팀 목록에서 members를 조회하거나 count 쿼리 없이 바로 사용
+    // Member insert/update/delete를 flush 할 때 TeamAggregateListener가 "member_count = member_count + ?" 로 증감하고
+    // 벌크 연산은 TeamAggregates, 어긋난 값은 TeamAggregateReconciler가 보정
+    // 엔티티로는 수정하지 않음 (updatable = false : 메모리의 오래된 값으로 덮어쓰지 않게, 버전 증가 X)
+    // 같은 영속성 컨텍스트에 있는 Team 인스턴스의 값은 갱신되지 않으므로 최신 값은 다시 조회해서 사용
+    @Column(updatable = false)
+    @OptimisticLock(excluded = true)
+    @Setter(AccessLevel.NONE)
+    private long memberCount;
+    @Column(updatable = false)
+    @OptimisticLock(excluded = true)
+    @Setter(AccessLevel.NONE)
+    private long ageSum;
+
+    // default_batch_fetch_size 설정으로 여러 팀의 members를 in 쿼리 한 번으로 초기화
+    // 연관관계의 주인은 Member.team이므로 members를 통째로 바꾸지 않음 (회원 추가는 Member.changeTeam)
     @OneToMany(mappedBy = "team")
+    @Setter(AccessLevel.NONE)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
 
+    public double getAverageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
 }
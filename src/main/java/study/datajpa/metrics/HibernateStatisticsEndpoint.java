@@ -0,0 +1,162 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import study.datajpa.sql.SlowQueryLog;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// localhost:8080/actuator/hibernate : 하이버네이트 통계 (쿼리별 실행 횟수/평균/최대 시간, 엔티티 로딩, flush 횟수) + 느린 쿼리 로그 설정
+// GET    /actuator/hibernate?top=20 : 전체 실행 시간이 긴 쿼리 순서로 top개
+// POST   /actuator/hibernate {"statistics": false, "slowQueryThresholdMs": 100, "slowQuerySampleRate": 0.1} : 재시작 없이 변경
+// DELETE /actuator/hibernate : 통계 초기화
+// 쿼리별 통계는 hibernate.statistics.query_max_size 개수까지만 보관 (메모리 제한)
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final Statistics statistics;
+    private final SlowQueryLog slowQueryLog;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, SlowQueryLog slowQueryLog) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics(@Nullable Integer top) {
+        if (top != null && top < 0) { // 400 Bad Request
+            throw new InvalidEndpointRequestException("top must not be negative: " + top, "top must not be negative");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("since", statistics.getStart());
+
+        Map<String, Object> session = new LinkedHashMap<>();
+        session.put("opened", statistics.getSessionOpenCount());
+        session.put("flushes", statistics.getFlushCount());
+        session.put("statementsPrepared", statistics.getPrepareStatementCount());
+        session.put("transactions", statistics.getTransactionCount());
+        session.put("optimisticFailures", statistics.getOptimisticFailureCount());
+        result.put("session", session);
+
+        Map<String, Object> entities = new LinkedHashMap<>();
+        entities.put("loads", statistics.getEntityLoadCount());
+        entities.put("fetches", statistics.getEntityFetchCount()); // 지연 로딩 등으로 추가 조회한 횟수
+        entities.put("inserts", statistics.getEntityInsertCount());
+        entities.put("updates", statistics.getEntityUpdateCount());
+        entities.put("deletes", statistics.getEntityDeleteCount());
+        entities.put("collectionLoads", statistics.getCollectionLoadCount());
+        entities.put("collectionFetches", statistics.getCollectionFetchCount());
+        Map<String, EntityStats> byEntity = new TreeMap<>();
+        for (String name : statistics.getEntityNames()) {
+            byEntity.put(name.substring(name.lastIndexOf('.') + 1), new EntityStats(statistics.getEntityStatistics(name)));
+        }
+        entities.put("byEntity", byEntity);
+        result.put("entities", entities);
+
+        List<QueryStats> queries = Stream.of(statistics.getQueries())
+                .map(query -> new QueryStats(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong(QueryStats::getTotalMs).reversed())
+                .limit(top == null ? DEFAULT_TOP : top)
+                .collect(Collectors.toList());
+        result.put("queries", queries);
+
+        Map<String, Object> slowQuery = new LinkedHashMap<>();
+        slowQuery.put("enabled", slowQueryLog.isEnabled());
+        slowQuery.put("thresholdMs", slowQueryLog.getThreshold().toMillis());
+        slowQuery.put("sampleRate", slowQueryLog.getSampleRate());
+        result.put("slowQuery", slowQuery);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable Boolean statistics, @Nullable Boolean slowQuery,
+                                         @Nullable Long slowQueryThresholdMs, @Nullable Double slowQuerySampleRate) {
+        // 잘못된 값은 하나도 반영하지 않고 400 Bad Request
+        if (slowQueryThresholdMs != null && slowQueryThresholdMs < 0) {
+            throw new InvalidEndpointRequestException("slowQueryThresholdMs must not be negative: " + slowQueryThresholdMs,
+                    "slowQueryThresholdMs must not be negative");
+        }
+        if (slowQuerySampleRate != null && !SlowQueryLog.isValidSampleRate(slowQuerySampleRate)) {
+            throw new InvalidEndpointRequestException("slowQuerySampleRate must be between 0 and 1: " + slowQuerySampleRate,
+                    "slowQuerySampleRate must be between 0 and 1");
+        }
+        if (statistics != null) {
+            this.statistics.setStatisticsEnabled(statistics); // 끄면 통계 수집 비용이 거의 없음
+        }
+        if (slowQuery != null) {
+            slowQueryLog.setEnabled(slowQuery);
+        }
+        if (slowQueryThresholdMs != null) {
+            slowQueryLog.setThreshold(Duration.ofMillis(slowQueryThresholdMs));
+        }
+        if (slowQuerySampleRate != null) {
+            slowQueryLog.setSampleRate(slowQuerySampleRate);
+        }
+        return statistics(0);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        statistics.clear();
+    }
+
+    @Getter
+    public static class QueryStats {
+        private final String query;
+        private final long executions;
+        private final long avgMs;
+        private final long maxMs;
+        private final long totalMs;
+        private final long rows;
+        private final long cacheHits;
+
+        QueryStats(String query, QueryStatistics stats) {
+            this.query = query;
+            this.executions = stats.getExecutionCount();
+            this.avgMs = stats.getExecutionAvgTime();
+            this.maxMs = stats.getExecutionMaxTime();
+            this.totalMs = stats.getExecutionTotalTime(); // 평균(소수점 버림) * 횟수는 빠른 쿼리일수록 0에 가까워짐
+            this.rows = stats.getExecutionRowCount();
+            this.cacheHits = stats.getCacheHitCount();
+        }
+    }
+
+    @Getter
+    public static class EntityStats {
+        private final long loads;
+        private final long fetches;
+        private final long inserts;
+        private final long updates;
+        private final long deletes;
+
+        EntityStats(EntityStatistics stats) {
+            this.loads = stats.getLoadCount();
+            this.fetches = stats.getFetchCount();
+            this.inserts = stats.getInsertCount();
+            this.updates = stats.getUpdateCount();
+            this.deletes = stats.getDeleteCount();
+        }
+    }
+}
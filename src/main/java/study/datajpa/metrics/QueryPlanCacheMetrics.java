@@ -0,0 +1,35 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+// 쿼리 플랜 캐시 적중률 (generate_statistics: true 필요)
+// hit/miss 횟수는 hibernate-micrometer가 hibernate.cache.query.plan{result=hit|miss}로 이미 기록
+// localhost:8080/actuator/metrics/hibernate.cache.query.plan.hit.ratio
+@Component
+@RequiredArgsConstructor
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Gauge.builder("hibernate.cache.query.plan.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .description("Query plan cache hit ratio (in_clause_parameter_padding keeps this close to 1)")
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+}
@@ -0,0 +1,130 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+// 리포지토리 메서드마다 실행 시간(histogram), 결과 개수, 에러 횟수를 기록
+// - Spring Data 리포지토리 (MemberRepository, TeamRepository, ItemRepository)
+// - @Repository 클래스 (MemberJPARepository, TeamJpaRepository ...)
+// meter는 메서드별로 한 번만 만들고 재사용 (호출마다 tag를 만들지 않음)
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    static final String TIMER = "repository.invocations";
+    static final String RESULT_SIZE = "repository.result.size";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Map<Method, Meters>> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Meters methodMeters = meters
+                .computeIfAbsent(joinPoint.getTarget().getClass(), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                        method -> new Meters(repositoryName(joinPoint.getTarget()), method.getName()));
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            methodMeters.error(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        long size = resultSize(result);
+        if (size >= 0) {
+            methodMeters.resultSize.record(size);
+        }
+        return result;
+    }
+
+    // Spring Data 리포지토리는 JDK 프록시이므로 구현한 리포지토리 인터페이스 이름을 사용
+    private String repositoryName(Object target) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(target)) {
+            if (Repository.class.isAssignableFrom(type)) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(target).getSimpleName();
+    }
+
+    // 조회 결과 개수 (count 같은 숫자 반환이나 void는 -1)
+    private long resultSize(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) { // Page 포함
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof BaseStream
+                || result instanceof Future) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private class Meters {
+        private final String repository;
+        private final String method;
+        private final Timer success;
+        private final DistributionSummary resultSize;
+        private final Map<Class<?>, Timer> errors = new ConcurrentHashMap<>();
+
+        Meters(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+            this.success = timer("SUCCESS", "none");
+            this.resultSize = DistributionSummary.builder(RESULT_SIZE)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+
+        Timer error(Throwable e) {
+            return errors.computeIfAbsent(e.getClass(), type -> timer("ERROR", type.getSimpleName()));
+        }
+
+        private Timer timer(String outcome, String exception) {
+            return Timer.builder(TIMER)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
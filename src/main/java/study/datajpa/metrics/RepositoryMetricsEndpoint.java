@@ -0,0 +1,64 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// localhost:8080/actuator/repositories : 리포지토리 메서드별 호출 횟수, 에러 횟수, 평균/최대/p99 시간(ms)
+@Component
+@Endpoint(id = "repositories")
+@RequiredArgsConstructor
+public class RepositoryMetricsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, MethodStats> repositories() {
+        Map<String, MethodStats> result = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(RepositoryMetricsAspect.TIMER).timers()) {
+            String key = timer.getId().getTag("repository") + "." + timer.getId().getTag("method");
+            result.computeIfAbsent(key, k -> new MethodStats())
+                    .add(timer, "ERROR".equals(timer.getId().getTag("outcome")));
+        }
+        return result;
+    }
+
+    @Getter
+    public static class MethodStats {
+        private long count;
+        private long errors;
+        private double totalMs;
+        private double maxMs;
+        private double p99Ms; // 성공한 호출 기준
+
+        void add(Timer timer, boolean error) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            count += snapshot.count();
+            if (error) {
+                errors += snapshot.count();
+            } else {
+                for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                    if (percentile.percentile() == 0.99) {
+                        p99Ms = percentile.value(TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+            totalMs += snapshot.total(TimeUnit.MILLISECONDS);
+            maxMs = Math.max(maxMs, snapshot.max(TimeUnit.MILLISECONDS));
+        }
+
+        public double getMeanMs() {
+            return count == 0 ? 0 : totalMs / count;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// saveAllBatched 실행 결과 (저장 건수, 소요 시간, 초당 처리량)
+@Getter
+@ToString
+public class BatchSaveResult {
+
+    private final long rows;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public BatchSaveResult(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+}
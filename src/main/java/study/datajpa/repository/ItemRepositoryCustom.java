@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+
+    // id가 이미 정해진 Item을 대량으로 저장
+    // save()는 건마다 merge -> select가 나가지만, 여기서는 in 쿼리로 존재 여부를 한 번에 확인한 후 없는 것만 persist
+    // 이미 있는 것은 조회한 엔티티에 값을 복사해서 변경 감지로 update
+    List<Item> upsertAll(Collection<Item> items);
+}
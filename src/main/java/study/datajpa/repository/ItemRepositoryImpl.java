@@ -0,0 +1,62 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private static final int IN_CLAUSE_SIZE = 500; // in 절 파라미터가 너무 많아지지 않게 나누어 조회
+    private static final int BATCH_SIZE = 100;
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    public List<Item> upsertAll(Collection<Item> items) {
+        List<String> ids = items.stream()
+                .map(Item::getId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // 1. 이미 있는 Item을 in 쿼리로 한 번에 조회 (영속성 컨텍스트에 올라감)
+        Map<String, Item> managed = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_SIZE) {
+            em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                    .setParameter("ids", ids.subList(i, Math.min(i + IN_CLAUSE_SIZE, ids.size())))
+                    .getResultList()
+                    .forEach(item -> managed.put(item.getId(), item));
+        }
+
+        // 2. 없는 것만 persist -> merge를 거치지 않으므로 건마다 select가 나가지 않음
+        // 이미 있는 것은 조회한 엔티티에 새 값을 복사 -> 값이 바뀐 것만 변경 감지로 update (createdDate는 유지)
+        List<Item> result = new ArrayList<>(items.size());
+        int inserted = 0;
+        for (Item item : items) {
+            Item found = managed.get(item.getId());
+            if (found != null) {
+                found.changeName(item.getName());
+                result.add(found);
+                continue;
+            }
+            em.persist(item); // @CreatedDate는 AuditingEntityListener가 채워줌 -> 이후 isNew() == false
+            managed.put(item.getId(), item); // 같은 id가 중복으로 들어온 경우 대비
+            result.add(item);
+
+            if (++inserted % BATCH_SIZE == 0) {
+                em.flush(); // hibernate.jdbc.batch_size 단위로 insert 전송
+            }
+        }
+        em.flush();
+        return result;
+    }
+}
@@ -1,19 +1,34 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.CountMode;
+import study.datajpa.repository.support.CountStrategy;
+import study.datajpa.repository.support.PageCountExecutor;
+import study.datajpa.repository.support.TeamAggregates;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJPARepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final PageCountExecutor pageCountExecutor;
+    private final TeamAggregates teamAggregates;
+    // 같은 클래스의 메서드를 this로 호출하면 프록시(@CountStrategy 등 aspect)를 거치지 않으므로 빈을 통해 호출
+    private final ObjectProvider<MemberJPARepository> self;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -50,14 +65,23 @@ public class MemberJPARepository {
                 .getResultList();
     }
 
+    @CountStrategy(CountMode.ESTIMATED) // 같은 age면 ttl 동안 count 결과를 재사용
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
                 .setParameter("age", age)
                 .getSingleResult(); // 1건 조회
     }
 
+    // findByPage와 totalCount를 순서대로 호출하지 않고 각각 다른 커넥션에서 동시에 실행
+    public CompletableFuture<Page<Member>> findPage(int age, Pageable pageable) {
+        return pageCountExecutor.pageAsync(pageable,
+                () -> findByPage(age, (int) pageable.getOffset(), pageable.getPageSize()),
+                () -> self.getObject().totalCount(age)); // @CountStrategy(ESTIMATED) 적용
+    }
+
     public int bulkAgePlus(int age) {
-        int resultCount = em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        teamAggregates.beforeAgePlus(age, null, null); // 팀 나이 합계 먼저 반영
+        int resultCount = em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
 
@@ -0,0 +1,140 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.support.LookupMode;
+import study.datajpa.repository.support.MicroBatcher;
+import study.datajpa.repository.support.SingleFlight;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// 트래픽이 몰릴 때 같은 회원을 동시에 조회하는 요청을 합쳐서 DB 호출 수를 줄임
+// 결과 엔티티는 여러 요청이 같이 사용하는 준영속 상태이므로 읽기 전용으로만 사용해야 함 (수정, 지연 로딩 X)
+// 조회는 요청(OSIV)의 EntityManager가 아닌 조회 전용 EntityManager에서 하고 트랜잭션이 끝나면 닫음
+// -> 다른 스레드에서 지연 로딩을 해도 요청 스레드의 세션을 건드리지 않고 LazyInitializationException 발생
+// 트랜잭션 안에서 호출하면 자기가 쓴 데이터를 봐야 하므로 합치지 않고 바로 리포지토리를 호출
+@Slf4j
+@Component
+public class MemberLookup implements DisposableBean {
+
+    private final MemberRepository memberRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final LookupMode mode;
+    private final TransactionTemplate readOnly;
+
+    private final SingleFlight<Long, Optional<Member>> byId = new SingleFlight<>();
+    private final SingleFlight<String, List<Member>> byUsername = new SingleFlight<>();
+
+    // batch 모드 전용 스레드 (dbExecutor에서 호출한 조회가 dbExecutor를 기다리며 막히지 않도록 분리)
+    private final ScheduledExecutorService batchThreads;
+    private final MicroBatcher<Long, Member> idBatcher;
+    private final MicroBatcher<String, List<Member>> usernameBatcher;
+
+    public MemberLookup(MemberRepository memberRepository,
+                        EntityManagerFactory entityManagerFactory,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${datajpa.lookup.mode:single-flight}") LookupMode mode,
+                        @Value("${datajpa.lookup.batch-window:2ms}") Duration window,
+                        @Value("${datajpa.lookup.batch-max-size:100}") int maxBatchSize,
+                        @Value("${datajpa.lookup.batch-threads:2}") int threads) {
+        this.memberRepository = memberRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.mode = mode;
+
+        // 조회 전용 트랜잭션 (EntityManager 분리는 loadDetached 참고)
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (mode == LookupMode.BATCH) {
+            batchThreads = Executors.newScheduledThreadPool(threads, daemon("member-lookup-"));
+            idBatcher = new MicroBatcher<>(ids -> memberRepository.findByIds(ids).stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity())),
+                    window, maxBatchSize, batchThreads, batchThreads);
+            usernameBatcher = new MicroBatcher<>(names -> memberRepository.findByNames(new ArrayList<>(names)).stream()
+                    .collect(Collectors.groupingBy(Member::getUsername)),
+                    window, maxBatchSize, batchThreads, batchThreads);
+        } else {
+            batchThreads = null;
+            idBatcher = null;
+            usernameBatcher = null;
+        }
+        log.info("member lookup mode = {}", mode);
+    }
+
+    public Optional<Member> findById(Long id) {
+        if (mode == LookupMode.DIRECT || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return memberRepository.findById(id);
+        }
+        if (mode == LookupMode.BATCH) {
+            return Optional.ofNullable(idBatcher.load(id));
+        }
+        return byId.execute(id, key -> loadDetached(() -> memberRepository.findById(key)));
+    }
+
+    // MemberRepository.findByUsername과 같이 없으면 null, 2건 이상이면 예외
+    public Member findByUsername(String username) {
+        if (mode == LookupMode.DIRECT || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return memberRepository.findByUsername(username);
+        }
+        List<Member> members = mode == LookupMode.BATCH
+                ? usernameBatcher.load(username)
+                : byUsername.execute(username, key -> loadDetached(() -> {
+                    Member member = memberRepository.findByUsername(key); // 쿼리 캐시 사용
+                    return member == null ? List.<Member>of() : List.of(member);
+                }));
+
+        if (members == null || members.isEmpty()) {
+            return null;
+        }
+        if (members.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size());
+        }
+        return members.get(0);
+    }
+
+    // OSIV가 요청 스레드에 EntityManager를 바인딩해 두었으면 REQUIRES_NEW도 그 EntityManager에서 트랜잭션을 시작함
+    // (결과가 요청 스레드의 세션에 영속 상태로 남은 채 다른 요청 스레드에 공유됨)
+    // -> 조회하는 동안만 바인딩을 풀어서 새 EntityManager로 조회하고, 트랜잭션이 끝나면 닫혀서 결과는 준영속 상태
+    private <T> T loadDetached(Supplier<T> loader) {
+        Object requestEntityManager = TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        try {
+            return readOnly.execute(status -> loader.get());
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+            }
+        }
+    }
+
+    private static CustomizableThreadFactory daemon(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    @Override
+    public void destroy() {
+        if (batchThreads != null) {
+            batchThreads.shutdown();
+        }
+    }
+}
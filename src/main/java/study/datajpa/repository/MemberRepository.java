@@ -1,16 +1,21 @@
 package study.datajpa.repository;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
@@ -22,17 +27,43 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    @Transactional(readOnly = true) // 라우팅 사용 시 replica에서 조회
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
     // Querydsl로 편리하게 하는 방법이 존재
+    @Transactional(readOnly = true)
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    // @Param에 들어온 값이 :names에 들어감 (where in 쿼리 지원)
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
-
+    // 페이징 버전 : 엔티티를 영속성 컨텍스트에 올리지 않고 필요한 컬럼만 dto로 바로 조회 (스냅샷, 변경 감지 X)
+    // Pageable의 정렬 조건은 alias(m) 기준으로 붙음 ex) sort=username -> order by m.username
+    // dto에만 있는 teamName은 Member의 필드가 아니므로 조인한 팀의 이름(t.name)으로 바꿔서 정렬
+    default Page<MemberDto> findMemberDtoAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return findMemberDtoPage(pageable);
+        }
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(order -> "teamName".equals(order.getProperty()) ? order.withProperty("t.name") : order)
+                .collect(Collectors.toList()));
+        return findMemberDtoPage(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+    }
+
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    // findByNames(where in 쿼리)는 값이 많을 때 나누어 실행하도록 MemberRepositoryImpl로 이동
+
+    // 여러 id를 in 쿼리 한 번으로 조회 (MemberLookup의 batch 모드에서 사용)
+    @Query("select m from Member m where m.id in :ids")
+    List<Member> findByIds(@Param("ids") Collection<Long> ids);
+
+    // 쿼리 캐시 : 같은 username이면 DB를 거치지 않고 캐시된 id로 2차 캐시에서 엔티티를 가져옴
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-by-username")
+    })
     Member findByUsername(String username);
 
     // 반환 타입을 유연하게 작성할 수 있음
@@ -44,16 +75,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // 추가로 컬렉션을 조회하는데 아무 것도 선택되지 않는 경우 빈 컬렉션을 제공 (NULL이 아님)
 
     // Pageable 인터페이스를 넘긴다
-    @Query(value = "select m from Member m left join m.team t",
-            countQuery = "select count(m.username) from Member m") // 카운트 쿼리만 따로 분리하면 성능 향상
-    Page<Member> findByAge(int age, Pageable pageable);
+    // Page<Member> findByAge(int age, Pageable pageable) -> count 전략을 고를 수 있도록 MemberRepositoryCustom으로 이동
     Slice<Member> findSliceByAge(int age, Pageable pageable);
+    long countByAge(int age);
 
-    @Modifying(clearAutomatically = true)
-    // 쿼리가 나간 다음에 em.clear(); 를 자동으로 실행
-    // em.flush()는 업데이트할 때 자동 DB 반영되므로 안해도 됨
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
+    // int bulkAgePlus(int age) -> Team 나이 합계도 같이 반영해야 하므로 MemberRepositoryCustom으로 이동
 
 
     @Query("select m from Member m left join fetch m.team")
@@ -69,9 +95,25 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findEntityGraphByUsername(@Param("username") String username);
 
     // 읽기 전용
-    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-by-username")
+    })
     Member findReadOnlyByUsername(String username);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
+
+    // 큐처럼 여러 consumer가 나누어 처리할 때 사용 : 다른 트랜잭션이 잠근 row는 기다리지 않고 건너뜀
+    // lock.timeout = -2 -> hibernate LockOptions.SKIP_LOCKED (for update skip locked)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    List<Member> findSkipLockedByUsername(String username);
+
+    // 잠겨 있으면 기다리지 않고 바로 예외 발생 (lock.timeout = 0 -> for update nowait)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "0"))
+    List<Member> findNoWaitByUsername(String username);
 }
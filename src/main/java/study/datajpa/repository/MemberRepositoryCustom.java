@@ -1,10 +1,53 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.BulkUpdateProgress;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
+
+    // where username in :names
+    // 값이 datajpa.in-clause.max-size(1000)보다 많으면 나누어서 실행하고 결과를 합침 (순서는 보장하지 않음)
+    List<Member> findByNames(List<String> names);
+
+    // count 쿼리는 구현 메서드의 @CountStrategy에 따라 실행
+    Page<Member> findByAge(int age, Pageable pageable);
+
+    // keyset(seek) 페이징 : (username, id) 순서로 cursor 다음 데이터를 size개 조회 (count 쿼리 없음)
+    // cursor가 null이면 처음부터 조회, username이 null인 회원이 가장 앞에 옴 (team은 fetch join으로 같이 조회)
+    Slice<Member> findByCursor(MemberCursor cursor, int size);
+
+    // 대량 저장 : batchSize마다 flush/clear 하여 영속성 컨텍스트 크기를 일정하게 유지
+    // clear가 일어나므로 호출하는 쪽 트랜잭션에서 관리하던 엔티티도 준영속 상태가 된다는 점에 주의
+    BatchSaveResult saveAllBatched(Stream<Member> members);
+
+    BatchSaveResult saveAllBatched(Stream<Member> members, int batchSize);
+
+    // 전체 회원을 List로 올리지 않고 한 건씩 읽어오는 stream (forward-only scroll)
+    // 트랜잭션 안에서 사용하고, 다 쓰면 반드시 close 해야 함 (try-with-resources)
+    // dto로 바로 조회하므로 영속성 컨텍스트를 비우지 않음 (호출한 쪽에서 관리하던 엔티티는 그대로 영속 상태)
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    // 전체 회원을 id 순서로 chunkSize씩 나누어 읽으면서 action 실행 (엔티티를 수정하면 변경 감지로 update)
+    // 청크 사이에 영속성 컨텍스트가 clearThreshold 이상이면 flush + clear 하므로 action 밖으로 엔티티를 들고 나가면 안 됨
+    // 처리한 회원 수 반환
+    long forEachMember(int chunkSize, Consumer<Member> action);
+
+    // age 이상인 회원의 나이를 1 증가 (벌크 연산) + 해당 회원이 속한 팀의 나이 합계 증가
+    // 실행 후 영속성 컨텍스트를 비움 (@Modifying(clearAutomatically = true)와 동일)
+    int bulkAgePlus(int age);
+
+    // bulkAgePlus와 같지만 id 범위를 나누어 청크마다 짧은 트랜잭션으로 실행 (대용량 테이블용)
+    // 중간에 실패하면 같은 age로 다시 호출했을 때 마지막으로 커밋된 청크 다음부터 이어서 실행
+    BulkUpdateProgress bulkAgePlusChunked(int age);
 }
@@ -1,16 +1,51 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.audit.BatchAudit;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.BatchPersistenceContext;
+import study.datajpa.repository.support.BulkUpdateProgress;
+import study.datajpa.repository.support.ChunkedBulkUpdateExecutor;
+import study.datajpa.repository.support.ChunkedUpdate;
+import study.datajpa.repository.support.CountMode;
+import study.datajpa.repository.support.CountStrategy;
+import study.datajpa.repository.support.InClauseExecutor;
+import study.datajpa.repository.support.PageCountExecutor;
+import study.datajpa.repository.support.PersistenceContextGuard;
+import study.datajpa.repository.support.TeamAggregates;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 // MemberRepository 이름을 맞춰줘야 한다는 점에 유의 (+ Impl을 붙여줘야 함)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    // hibernate.jdbc.batch_size와 맞춰야 flush 한 번에 batch가 딱 나누어 떨어짐
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
     private final EntityManager em;
+    private final InClauseExecutor inClauseExecutor;
+    private final PageCountExecutor pageCountExecutor;
+    private final ChunkedBulkUpdateExecutor chunkedBulkUpdateExecutor;
+    private final TeamAggregates teamAggregates;
+    private final PersistenceContextGuard persistenceContextGuard;
 
 //    public MemberRepositoryImpl(EntityManager em) {
 //        this.em = em;
@@ -20,4 +55,160 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public List<Member> findByNames(List<String> names) {
+        // in_clause_parameter_padding으로 청크 크기도 2의 거듭제곱 단위로 패딩되어 SQL 종류가 몇 개로 고정됨
+        return inClauseExecutor.execute(names, chunk ->
+                em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList());
+    }
+
+    @Override
+    @Transactional(readOnly = true) // Spring Data 쿼리 메서드일 때와 같이 읽기 전용 (라우팅 사용 시 replica)
+    @CountStrategy(CountMode.ASYNC) // content 쿼리와 count 쿼리를 동시에 실행
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        String jpql = QueryUtils.applySorting(
+                "select m from Member m left join m.team t where m.age = :age", pageable.getSort(), "m");
+
+        return pageCountExecutor.page(pageable,
+                () -> em.createQuery(jpql, Member.class)
+                        .setParameter("age", age)
+                        .setFirstResult((int) pageable.getOffset())
+                        .setMaxResults(pageable.getPageSize())
+                        .getResultList(),
+                // 조인이 필요 없으므로 count는 member만 조회 (이전과 달리 age 조건도 반영)
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    @Override
+    public Slice<Member> findByCursor(MemberCursor cursor, int size) {
+        // team은 응답(teamName)에 쓰이므로 같이 조회 (ManyToOne이라 페이징과 같이 써도 됨)
+        // username이 null인 회원은 맨 앞에 오도록 정렬 (DB마다 기본 null 정렬 위치가 다름)
+        String select = "select m from Member m left join fetch m.team t";
+        String orderBy = " order by m.username asc nulls first, m.id asc";
+        TypedQuery<Member> query;
+        if (cursor == null) {
+            query = em.createQuery(select + orderBy, Member.class);
+        } else if (cursor.getUsername() == null) {
+            // null과의 비교(>, =)는 항상 false이므로 null 구간은 따로 조건을 줌
+            query = em.createQuery(select +
+                            " where (m.username is null and m.id > :id) or m.username is not null" + orderBy, Member.class)
+                    .setParameter("id", cursor.getId());
+        } else {
+            // offset 없이 마지막 위치 이후부터 읽으므로 페이지가 깊어져도 비용이 일정함
+            query = em.createQuery(select +
+                            " where m.username > :username or (m.username = :username and m.id > :id)" + orderBy, Member.class)
+                    .setParameter("username", cursor.getUsername())
+                    .setParameter("id", cursor.getId());
+        }
+
+        List<Member> content = query
+                .setMaxResults(size + 1) // 1개를 더 가져와서 다음 페이지 여부 판단 (Slice와 동일)
+                .getResultList();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by("username", "id")), hasNext);
+    }
+
+    @Override
+    public BatchSaveResult saveAllBatched(Stream<Member> members) {
+        return saveAllBatched(members, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    @Transactional
+    public BatchSaveResult saveAllBatched(Stream<Member> members, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        long start = System.nanoTime();
+        long rows = 0;
+
+        // 등록일/등록자는 한 번만 구해서 모든 회원에 같은 값을 넣음
+        try (BatchAudit.Scope audit = BatchAudit.pin()) {
+            Iterator<Member> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                em.persist(iterator.next()); // 시퀀스는 allocationSize만큼 미리 받아오므로 매번 조회하지 않음
+                if (++rows % batchSize == 0) {
+                    em.flush(); // 모아둔 insert를 JDBC batch로 전송
+                    em.clear(); // 1차 캐시에 쌓인 엔티티 제거
+                }
+            }
+            em.flush();
+            em.clear();
+        }
+
+        return new BatchSaveResult(rows, System.nanoTime() - start);
+    }
+
+    @Override
+    @Transactional
+    @BatchPersistenceContext // clear-threshold 이상 쌓이면 청크 사이에서 flush + clear
+    public long forEachMember(int chunkSize, Consumer<Member> action) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        long count = 0;
+        long lastId = 0;
+        while (true) {
+            persistenceContextGuard.checkpoint(); // 이전 청크에서 바꾼 내용은 flush 후 clear
+            // offset 대신 마지막 id 다음부터 읽으므로 clear 되어도 위치를 잃지 않음
+            List<Member> chunk = em.createQuery("select m from Member m where m.id > :lastId order by m.id", Member.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(chunkSize)
+                    .getResultList();
+            for (Member member : chunk) {
+                action.accept(member);
+            }
+            count += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return count;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        // 엔티티를 만들지 않고 dto로 바로 조회 -> 영속성 컨텍스트에 아무것도 올라가지 않으므로 clear가 필요 없고
+        // 호출한 쪽 트랜잭션에서 관리하던 엔티티나 아직 flush 하지 않은 변경에도 영향을 주지 않음
+        return em.unwrap(Session.class)
+                .createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t order by m.id", MemberDto.class)
+                .setFetchSize(fetchSize) // 드라이버가 fetchSize 만큼씩 끊어서 가져옴
+                .stream(); // 내부적으로 ScrollMode.FORWARD_ONLY 로 scroll
+    }
+
+    @Override
+    @Transactional
+    public int bulkAgePlus(int age) {
+        teamAggregates.beforeAgePlus(age, null, null); // 회원 나이가 바뀌기 전에 대상 회원 수를 세야 함
+
+        // jpql 실행 전 flush가 자동으로 일어남
+        // 벌크 연산이 끝나면 hibernate가 Member 2차 캐시 region과 member 테이블 쿼리 캐시를 무효화함
+        // 벌크 연산은 @Version을 자동으로 올리지 않으므로 직접 증가 (낙관적 락을 쓰는 트랜잭션이 덮어쓰지 않게)
+        int resultCount = em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
+                .setParameter("age", age)
+                .executeUpdate();
+        em.clear(); // 영속성 컨텍스트에 남아있는 예전 나이의 엔티티 제거
+        return resultCount;
+    }
+
+    @Override
+    public BulkUpdateProgress bulkAgePlusChunked(int age) {
+        return chunkedBulkUpdateExecutor.execute(new ChunkedUpdate(
+                "member-age-plus-" + age,
+                "Member",
+                "update Member m set m.age = m.age + 1, m.version = m.version + 1" +
+                        " where m.age >= :age and m.id between :fromId and :toId",
+                Collections.singletonMap("age", age),
+                (fromId, toId) -> teamAggregates.beforeAgePlus(age, fromId, toId)));
+    }
 }
@@ -1,8 +1,16 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import study.datajpa.dto.TeamDto;
 import study.datajpa.entity.Team;
 
-public interface TeamRepository extends JpaRepository<Team, Long> {
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
 
+    // members를 조인하지 않고 Team에 저장된 회원 수, 나이 합계를 사용
+    @Query(value = "select new study.datajpa.dto.TeamDto(t.id, t.name, t.memberCount, t.ageSum) from Team t",
+            countQuery = "select count(t) from Team t")
+    Page<TeamDto> findTeamDtoAll(Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.entity.Team;
+
+public interface TeamRepositoryCustom {
+
+    // 팀 페이지와 각 팀의 members를 쿼리 2번으로 조회 (+ 필요하면 count)
+    // 컬렉션 페치 조인 + 페이징은 DB가 아닌 메모리에서 페이징하므로 사용하지 않음
+    Page<Team> findTeamsWithMembers(Pageable pageable);
+}
@@ -0,0 +1,46 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.support.PageCountExecutor;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final EntityManager em;
+    private final PageCountExecutor pageCountExecutor;
+
+    @Override
+    @Transactional(readOnly = true) // 두 쿼리가 같은 영속성 컨텍스트를 사용해야 1번에서 조회한 팀에 members가 채워짐
+    public Page<Team> findTeamsWithMembers(Pageable pageable) {
+        String jpql = QueryUtils.applySorting("select t from Team t", pageable.getSort(), "t");
+
+        return pageCountExecutor.page(pageable,
+                () -> {
+                    // 1. 팀만 DB에서 페이징
+                    List<Team> teams = em.createQuery(jpql, Team.class)
+                            .setFirstResult((int) pageable.getOffset())
+                            .setMaxResults(pageable.getPageSize())
+                            .getResultList();
+                    if (teams.isEmpty()) {
+                        return teams;
+                    }
+
+                    // 2. 조회한 팀들의 members를 페치 조인으로 한 번에 초기화 (페이징 X)
+                    List<Long> ids = teams.stream().map(Team::getId).collect(Collectors.toList());
+                    em.createQuery("select distinct t from Team t left join fetch t.members where t.id in :ids", Team.class)
+                            .setParameter("ids", ids)
+                            .getResultList();
+                    return teams;
+                },
+                () -> em.createQuery("select count(t) from Team t", Long.class).getSingleResult());
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.repository.support;
+
+// PersistenceContextGuard.inBatch 안에서 실행할 작업
+// 작업이 던진 예외(checked 포함)는 감싸지 않고 그대로 호출한 쪽으로 전달됨
+@FunctionalInterface
+public interface BatchAction<T, E extends Throwable> {
+
+    T run() throws E;
+}
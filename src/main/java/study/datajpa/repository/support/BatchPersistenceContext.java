@@ -0,0 +1,21 @@
+package study.datajpa.repository.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 많은 엔티티를 읽고 수정하는 긴 트랜잭션(배치) 메서드에 붙임
+// 메서드 안에서 리포지토리를 호출할 때마다(또는 PersistenceContextGuard.checkpoint) 영속성 컨텍스트의 엔티티 수를 확인해서 clearAt 이상이면 flush + clear
+// 쿼리 한 번으로 많은 엔티티를 읽으면 그 호출 안에서는 clear 할 수 없으므로 나누어 읽어야 함 ex) MemberRepository.forEachMember
+// clear 이후에는 그 전에 조회한 엔티티가 준영속 상태가 되므로 리포지토리 호출을 넘어서 엔티티를 들고 있으면 안 됨
+// 적용은 PersistenceContextGuardAspect가 담당 (@Transactional 메서드 안에서만 동작)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchPersistenceContext {
+
+    // 0이면 datajpa.persistence-context.clear-threshold 사용
+    int clearAt() default 0;
+}
@@ -0,0 +1,23 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkUpdateProgress {
+
+    private final String jobName;
+    private final long lastId;
+    private final long maxId;
+    private final long updatedRows;
+    private final boolean completed;
+
+    public BulkUpdateProgress(String jobName, long lastId, long maxId, long updatedRows, boolean completed) {
+        this.jobName = jobName;
+        this.lastId = lastId;
+        this.maxId = maxId;
+        this.updatedRows = updatedRows;
+        this.completed = completed;
+    }
+}
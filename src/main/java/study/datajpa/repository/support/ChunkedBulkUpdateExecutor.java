@@ -0,0 +1,163 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkUpdateCheckpoint;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// 한 번에 전체 테이블을 update 하지 않고 id 범위를 chunkSize 만큼씩 잘라서 각각 짧은 트랜잭션으로 실행
+// -> 락을 오래 잡지 않고, 실패해도 체크포인트부터 다시 실행할 수 있음
+// 청크마다 새 트랜잭션(REQUIRES_NEW)으로 커밋하므로 트랜잭션 밖에서 호출해야 함
+@Slf4j
+@Component
+public class ChunkedBulkUpdateExecutor {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    private final Duration throttle;
+
+    public ChunkedBulkUpdateExecutor(PlatformTransactionManager transactionManager,
+                                     @Value("${datajpa.bulk-update.chunk-size:1000}") int defaultChunkSize,
+                                     @Value("${datajpa.bulk-update.throttle:10ms}") Duration throttle) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultChunkSize = defaultChunkSize;
+        this.throttle = throttle;
+    }
+
+    public BulkUpdateProgress execute(ChunkedUpdate update) {
+        return execute(update, defaultChunkSize, progress -> { });
+    }
+
+    public BulkUpdateProgress execute(ChunkedUpdate update, int chunkSize, Consumer<BulkUpdateProgress> listener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        long[] range = transactionTemplate.execute(status -> idRange(update.getEntityName()));
+        long maxId = range[1];
+
+        long lastId;
+        try {
+            lastId = startCheckpoint(update.getJobName(), range[0]);
+        } catch (DataIntegrityViolationException e) { // 다른 실행이 동시에 체크포인트를 만듦 -> 그 체크포인트를 사용
+            lastId = startCheckpoint(update.getJobName(), range[0]);
+        }
+        if (lastId >= range[0]) {
+            log.info("bulk update [{}] resumes after id {}", update.getJobName(), lastId);
+        }
+
+        BulkUpdateProgress progress = null;
+        while (lastId < maxId) {
+            long expectedLastId = lastId;
+
+            // 체크포인트에 락을 걸고 읽은 뒤 update와 체크포인트 갱신을 같은 트랜잭션에서 커밋
+            // -> 같은 작업이 동시에 실행되거나 재시도가 겹쳐도 같은 id 범위를 두 번 적용하지 않음
+            progress = transactionTemplate.execute(status -> {
+                BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, update.getJobName(),
+                        LockModeType.PESSIMISTIC_WRITE);
+                if (checkpoint.isCompleted()) { // 다른 실행이 먼저 끝냄
+                    return new BulkUpdateProgress(update.getJobName(), maxId, maxId, checkpoint.getUpdatedRows(), true);
+                }
+                long checkpointId = checkpoint.getLastId() == null ? range[0] - 1 : checkpoint.getLastId();
+                if (checkpointId < expectedLastId) { // 다른 실행이 작업을 처음부터 다시 시작함
+                    throw new IllegalStateException("bulk update [" + update.getJobName() + "] checkpoint moved back from "
+                            + expectedLastId + " to " + checkpointId + ", aborting");
+                }
+                if (checkpointId > expectedLastId) { // 다른 실행이 처리한 청크는 건너뜀
+                    log.info("bulk update [{}] skips to id {} processed by another run", update.getJobName(), checkpointId);
+                }
+
+                long fromId = checkpointId + 1;
+                long toId = Math.min(checkpointId + chunkSize, maxId);
+                int updated = 0;
+                if (fromId <= toId) {
+                    update.getBeforeChunk().accept(fromId, toId);
+                    Query query = em.createQuery(update.getJpql())
+                            .setParameter("fromId", fromId)
+                            .setParameter("toId", toId);
+                    update.getParameters().forEach(query::setParameter);
+                    updated = query.executeUpdate();
+                    checkpoint.advance(toId, updated);
+                    if (toId >= maxId) {
+                        checkpoint.complete();
+                    }
+                }
+                // fromId > toId : 더 큰 maxId로 시작한 다른 실행이 이미 넘어감 -> 완료 처리는 그쪽에 맡김
+                return new BulkUpdateProgress(update.getJobName(), Math.max(toId, checkpointId), maxId,
+                        checkpoint.getUpdatedRows(), checkpoint.isCompleted());
+            });
+            lastId = progress.getLastId();
+
+            log.debug("bulk update [{}] {}/{} ids, {} rows", update.getJobName(), lastId, maxId, progress.getUpdatedRows());
+            listener.accept(progress);
+
+            if (!progress.isCompleted() && !sleep()) {
+                return progress; // 인터럽트 -> 체크포인트가 남아 있으므로 다시 실행하면 이어서 처리
+            }
+        }
+
+        if (progress == null) { // 처리할 데이터가 없음
+            progress = transactionTemplate.execute(status -> {
+                BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, update.getJobName());
+                checkpoint.complete();
+                return new BulkUpdateProgress(update.getJobName(), maxId, maxId, checkpoint.getUpdatedRows(), true);
+            });
+        }
+
+        // @Modifying(clearAutomatically = true)와 같이 호출한 쪽 영속성 컨텍스트에 오래된 엔티티가 남지 않게 함
+        em.clear();
+        log.info("bulk update [{}] finished, {} rows", update.getJobName(), progress.getUpdatedRows());
+        return progress;
+    }
+
+    // 체크포인트 조회 (없으면 생성, 이미 끝난 작업이면 처음부터)
+    private long startCheckpoint(String jobName, long minId) {
+        return transactionTemplate.execute(status -> {
+            BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, jobName);
+            if (checkpoint == null) {
+                checkpoint = new BulkUpdateCheckpoint(jobName);
+                em.persist(checkpoint);
+            } else if (checkpoint.isCompleted()) {
+                checkpoint.restart();
+            }
+            return checkpoint.getLastId() == null ? minId - 1 : checkpoint.getLastId();
+        });
+    }
+
+    private long[] idRange(String entityName) {
+        Object[] result = (Object[]) em.createQuery(
+                        "select min(e.id), max(e.id) from " + entityName + " e")
+                .getSingleResult();
+        if (result[0] == null) {
+            return new long[]{0, 0};
+        }
+        return new long[]{((Number) result[0]).longValue(), ((Number) result[1]).longValue()};
+    }
+
+    private boolean sleep() {
+        if (throttle.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(throttle.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// 청크 단위로 나누어 실행할 벌크 업데이트 정의
+// jpql에는 반드시 :fromId, :toId 조건이 있어야 함 ex) ... and m.id between :fromId and :toId
+@Getter
+public class ChunkedUpdate {
+
+    private final String jobName; // 체크포인트 key (같은 이름이면 이어서 실행)
+    private final String entityName; // id 범위를 구할 엔티티
+    private final String jpql;
+    private final Map<String, Object> parameters;
+    // 청크 update 직전에 같은 트랜잭션에서 실행 (fromId, toId) ex) 연관된 집계 값 반영
+    private final BiConsumer<Long, Long> beforeChunk;
+
+    public ChunkedUpdate(String jobName, String entityName, String jpql, Map<String, Object> parameters) {
+        this(jobName, entityName, jpql, parameters, (fromId, toId) -> { });
+    }
+
+    public ChunkedUpdate(String jobName, String entityName, String jpql, Map<String, Object> parameters,
+                         BiConsumer<Long, Long> beforeChunk) {
+        this.jobName = jobName;
+        this.entityName = entityName;
+        this.jpql = jpql;
+        this.parameters = parameters;
+        this.beforeChunk = beforeChunk;
+    }
+}
@@ -0,0 +1,13 @@
+package study.datajpa.repository.support;
+
+public enum CountMode {
+
+    // 기본 동작 : 첫 페이지가 size보다 적게 조회되면 count 쿼리를 생략
+    SKIP_SHORT_PAGE,
+
+    // 조건(파라미터)별로 count 결과를 ttl 동안 캐시해서 재사용 (정확한 값이 아닐 수 있음)
+    ESTIMATED,
+
+    // content 쿼리와 count 쿼리를 다른 커넥션에서 동시에 실행
+    ASYNC
+}
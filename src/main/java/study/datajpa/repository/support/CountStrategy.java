@@ -0,0 +1,20 @@
+package study.datajpa.repository.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 페이징 메서드(Page 반환)나 count 메서드(long 반환)에 붙여서 count 쿼리 실행 방식을 지정
+// 적용은 CountStrategyAspect가 담당
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CountStrategy {
+
+    CountMode value() default CountMode.SKIP_SHORT_PAGE;
+
+    // ESTIMATED 일 때 count 결과를 캐시하는 시간 (초)
+    long ttlSeconds() default 60;
+}
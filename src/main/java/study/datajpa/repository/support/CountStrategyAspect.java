@@ -0,0 +1,57 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CountStrategyAspect {
+
+    private final PageCountExecutor pageCountExecutor;
+
+    @Around("@annotation(countStrategy)")
+    public Object applyCountStrategy(ProceedingJoinPoint joinPoint, CountStrategy countStrategy) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String key = cacheKey(signature, joinPoint.getArgs());
+
+        Class<?> returnType = signature.getReturnType();
+        if (returnType == long.class || returnType == Long.class) {
+            // count 메서드 : ESTIMATED 일 때만 캐시를 거침
+            if (countStrategy.value() != CountMode.ESTIMATED) {
+                return joinPoint.proceed();
+            }
+            Long cached = pageCountExecutor.findEstimatedCount(key);
+            if (cached != null) {
+                return cached;
+            }
+            Long count = (Long) joinPoint.proceed();
+            pageCountExecutor.putEstimatedCount(key, count, countStrategy.ttlSeconds());
+            return count;
+        }
+
+        // 페이징 메서드 : 메서드 안에서 PageCountExecutor.page()를 호출할 때 사용할 전략을 지정
+        PageCountExecutor.Binding previous = PageCountExecutor.bind(new PageCountExecutor.Binding(countStrategy, key));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            PageCountExecutor.restore(previous);
+        }
+    }
+
+    // 메서드 + Pageable을 제외한 파라미터 (= count 조건)
+    private String cacheKey(MethodSignature signature, Object[] args) {
+        return signature.getDeclaringTypeName() + "." + signature.getName() + Arrays.stream(args)
+                .filter(arg -> !(arg instanceof Pageable))
+                .map(String::valueOf)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+}
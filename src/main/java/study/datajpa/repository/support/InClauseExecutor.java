@@ -0,0 +1,100 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+// where x in (...) 쿼리에 넘길 값이 많으면 maxSize개씩 나누어 실행하고 결과를 합침
+// (드라이버/DB의 파라미터 수 제한 회피, 청크 크기가 일정하므로 in_clause_parameter_padding과 같이 SQL 종류도 몇 개로 고정됨)
+// 바인딩된 EntityManager가 없을 때만 청크를 dbExecutor에서 병렬로 실행
+// 트랜잭션 안이거나 트랜잭션 없이 EntityManager만 열려 있으면(OSIV) 같은 영속성 컨텍스트에서 순서대로 실행
+// (다른 스레드에서 조회하면 새 EntityManager로 읽으므로 결과가 준영속 상태 -> 지연 로딩, 1차 캐시 동일성이 깨짐)
+@Component
+public class InClauseExecutor {
+
+    private final Executor dbExecutor;
+    private final int maxSize;
+    private final boolean parallel;
+
+    public InClauseExecutor(@Qualifier("dbExecutor") Executor dbExecutor,
+                            @Value("${datajpa.in-clause.max-size:1000}") int maxSize,
+                            @Value("${datajpa.in-clause.parallel:true}") boolean parallel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.dbExecutor = dbExecutor;
+        this.maxSize = maxSize;
+        this.parallel = parallel;
+    }
+
+    public <T, R> List<R> execute(Collection<T> values, Function<List<T>, List<R>> query) {
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values)); // 중복 값은 파라미터만 낭비
+        if (distinct.isEmpty()) {
+            return new ArrayList<>(); // in () 는 문법 오류
+        }
+        if (distinct.size() <= maxSize) {
+            return query.apply(distinct);
+        }
+
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += maxSize) {
+            chunks.add(distinct.subList(i, Math.min(i + maxSize, distinct.size())));
+        }
+
+        List<R> result = new ArrayList<>();
+        if (!parallel || TransactionSynchronizationManager.isActualTransactionActive() || entityManagerBound()) {
+            chunks.forEach(chunk -> result.addAll(query.apply(chunk)));
+            return result;
+        }
+
+        List<FutureTask<List<R>>> tasks = new ArrayList<>();
+        for (List<T> chunk : chunks) {
+            FutureTask<List<R>> task = new FutureTask<>(() -> query.apply(chunk));
+            tasks.add(task);
+            try {
+                dbExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // executor가 꽉 찼으면 아래에서 호출한 스레드가 직접 실행
+            }
+        }
+        for (FutureTask<List<R>> task : tasks) {
+            // 아직 시작하지 않은 청크는 호출한 스레드가 직접 실행 (이미 실행 중이거나 끝났으면 아무것도 안 함)
+            // -> dbExecutor 스레드에서 호출해도 빈 스레드를 기다리며 막히지 않음
+            task.run();
+            result.addAll(get(task));
+        }
+        return result;
+    }
+
+    // OpenEntityManagerInViewInterceptor, 트랜잭션 등으로 현재 스레드에 EntityManager가 열려 있는지
+    private static boolean entityManagerBound() {
+        return TransactionSynchronizationManager.getResourceMap().values().stream()
+                .anyMatch(EntityManagerHolder.class::isInstance);
+    }
+
+    private static <R> List<R> get(FutureTask<List<R>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for in-clause chunk", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 애플리케이션 시작 시 리포지토리의 쿼리 메서드 이름(findByUsernameAndAge...)과 @Query JPQL의 where 조건을 분석해서
+// 조건 컬럼 중 어느 것도 인덱스의 첫 번째 컬럼이 아니면(= 풀 스캔 가능성) 경고 로그를 남김
+// 인덱스 정보는 @Table(indexes)가 아닌 실제 DB 메타데이터(PK, FK 인덱스 포함)를 사용
+// JPQL은 정규식으로 단순하게 분석하므로 괄호로 묶인 or 조건, 서브쿼리 등은 정확하지 않을 수 있음
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datajpa.index-advisor.enabled", havingValue = "true", matchIfMissing = true)
+public class IndexAdvisor {
+
+    // from Member m, update Member m, join m.team t, join fetch m.team t
+    private static final Pattern ALIAS = Pattern.compile(
+            "(?i)\\b(?:from|update|join(?:\\s+fetch)?)\\s+([\\w.]+)\\s+(?:as\\s+)?(?!(?:where|join|left|inner|set|order|group|on)\\b)(\\w+)");
+    private static final Pattern WHERE = Pattern.compile("(?is)\\bwhere\\b(.*?)(?:\\bgroup\\s+by\\b|\\border\\s+by\\b|$)");
+    // m.username = :username, m.id in :ids, m.age >= :age, m.team.id = :id
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?i)\\b(\\w+)\\.([\\w.]+)\\s*(?:=|<>|!=|<=|>=|<|>|\\bin\\b|\\blike\\b|\\bbetween\\b|\\bis\\b)");
+    private static final Pattern OR = Pattern.compile("(?i)\\bor\\b");
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+
+    private final Map<String, Set<String>> leadingColumns = new HashMap<>(); // 테이블 -> 인덱스 첫 번째 컬럼들
+
+    @Getter
+    private List<Advice> advice = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void advise() {
+        advice = analyze();
+        if (advice.isEmpty()) {
+            log.info("index advisor: all repository query predicates are covered by an index");
+        }
+        advice.forEach(a -> log.warn("index advisor: {}", a));
+    }
+
+    public List<Advice> analyze() {
+        List<Advice> result = new ArrayList<>();
+        Repositories repositories = new Repositories(beanFactory);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                Query query = method.getAnnotation(Query.class);
+                if (query == null) {
+                    result.addAll(check(source, derivedPredicates(method.getName(), information.getDomainType())));
+                } else if (!query.nativeQuery()) {
+                    result.addAll(check(source, jpqlPredicates(query.value())));
+                    if (!query.countQuery().isEmpty()) {
+                        result.addAll(check(source + "(count)", jpqlPredicates(query.countQuery())));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // or로 나뉜 조건 그룹마다 테이블별 조건 컬럼 중 하나라도 인덱스의 첫 번째 컬럼이면 인덱스를 탈 수 있다고 판단
+    List<Advice> check(String source, List<Map<String, Set<String>>> groups) {
+        List<Advice> result = new ArrayList<>();
+        for (Map<String, Set<String>> group : groups) {
+            group.forEach((table, columns) -> {
+                Set<String> indexed = leadingColumns.computeIfAbsent(table, this::loadLeadingColumns);
+                if (columns.stream().noneMatch(indexed::contains)) {
+                    result.add(new Advice(source, table, columns));
+                }
+            });
+        }
+        return result;
+    }
+
+    // 쿼리 메서드 이름 분석 (Spring Data와 같은 PartTree 사용)
+    List<Map<String, Set<String>>> derivedPredicates(String methodName, Class<?> domainType) {
+        List<Map<String, Set<String>>> groups = new ArrayList<>();
+        PartTree tree;
+        try {
+            tree = new PartTree(methodName, domainType);
+        } catch (RuntimeException e) {
+            return groups; // 쿼리 메서드가 아님 (ex. 이름 규칙에 맞지 않는 커스텀 메서드)
+        }
+        for (PartTree.OrPart orPart : tree) {
+            Map<String, Set<String>> group = new LinkedHashMap<>();
+            for (Part part : orPart) {
+                PropertyPath path = part.getProperty();
+                addColumn(group, persister(domainType.getName()), path.getSegment(),
+                        path.hasNext() ? path.next().getSegment() : null);
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    // @Query JPQL 분석 : alias -> 엔티티를 구하고 where 절의 alias.속성 조건을 컬럼으로 바꿈
+    List<Map<String, Set<String>>> jpqlPredicates(String jpql) {
+        List<Map<String, Set<String>>> groups = new ArrayList<>();
+        Matcher where = WHERE.matcher(jpql);
+        if (!where.find()) {
+            return groups; // 조건 없음 (전체 조회)
+        }
+
+        Map<String, AbstractEntityPersister> aliases = new HashMap<>();
+        Matcher alias = ALIAS.matcher(jpql);
+        while (alias.find()) {
+            String target = alias.group(1);
+            int dot = target.indexOf('.');
+            AbstractEntityPersister persister = dot < 0
+                    ? persisterByEntityName(target)
+                    : associated(aliases.get(target.substring(0, dot)), target.substring(dot + 1));
+            if (persister != null) {
+                aliases.put(alias.group(2), persister);
+            }
+        }
+
+        for (String condition : OR.split(where.group(1))) {
+            Map<String, Set<String>> group = new LinkedHashMap<>();
+            Matcher predicate = PREDICATE.matcher(condition);
+            while (predicate.find()) {
+                AbstractEntityPersister persister = aliases.get(predicate.group(1));
+                if (persister != null) {
+                    String[] path = predicate.group(2).split("\\.");
+                    addColumn(group, persister, path[0], path.length > 1 ? path[1] : null);
+                }
+            }
+            if (!group.isEmpty()) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    // property가 연관관계이면 FK 컬럼(team.id -> team_id), 그 외 연관 엔티티의 속성(team.name)은 해당 테이블의 컬럼
+    private void addColumn(Map<String, Set<String>> group, AbstractEntityPersister persister, String property, String next) {
+        if (persister == null) {
+            return;
+        }
+        if (property.equals(persister.getIdentifierPropertyName())) {
+            add(group, persister.getTableName(), persister.getIdentifierColumnNames());
+            return;
+        }
+        Type type;
+        try {
+            type = persister.getPropertyType(property);
+        } catch (RuntimeException e) {
+            return; // 알 수 없는 속성
+        }
+        if (type.isCollectionType()) {
+            return; // 컬렉션 조건은 다른 테이블 조인이므로 제외
+        }
+        if (type instanceof EntityType && next != null) {
+            AbstractEntityPersister target = associated(persister, property);
+            if (target != null && !next.equals(target.getIdentifierPropertyName())) {
+                addColumn(group, target, next, null);
+                return;
+            }
+        }
+        add(group, persister.getTableName(), persister.getPropertyColumnNames(property));
+    }
+
+    private void add(Map<String, Set<String>> group, String table, String[] columns) {
+        Set<String> set = group.computeIfAbsent(table.toLowerCase(Locale.ROOT), t -> new LinkedHashSet<>());
+        for (String column : columns) {
+            set.add(column.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private AbstractEntityPersister associated(AbstractEntityPersister persister, String property) {
+        if (persister == null) {
+            return null;
+        }
+        try {
+            Type type = persister.getPropertyType(property);
+            if (type instanceof CollectionType) {
+                type = ((CollectionType) type).getElementType(sessionFactory());
+            }
+            return type instanceof EntityType
+                    ? persister(((EntityType) type).getAssociatedEntityName())
+                    : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private AbstractEntityPersister persisterByEntityName(String entityName) {
+        return entityManagerFactory.getMetamodel().getEntities().stream()
+                .filter(entity -> entity.getName().equals(entityName))
+                .findFirst()
+                .map(entity -> persister(entity.getJavaType().getName()))
+                .orElse(null);
+    }
+
+    private AbstractEntityPersister persister(String entityName) {
+        return (AbstractEntityPersister) sessionFactory().getMetamodel().entityPersister(entityName);
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    // DB의 인덱스(PK 포함)에서 첫 번째 컬럼만 모음
+    private Set<String> loadLeadingColumns(String table) {
+        Set<String> columns = new LinkedHashSet<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // DB마다 식별자 대소문자 저장 방식이 다르므로 그대로/대문자/소문자 순서로 찾음
+            for (String name : new LinkedHashSet<>(List.of(table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT)))) {
+                Map<String, TreeMap<Short, String>> indexes = new HashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(null, null, name, false, true)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            indexes.computeIfAbsent(index, i -> new TreeMap<>())
+                                    .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                try (ResultSet rs = metaData.getPrimaryKeys(null, null, name)) {
+                    while (rs.next()) {
+                        if (rs.getShort("KEY_SEQ") == 1) {
+                            columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                indexes.values().forEach(index -> columns.add(index.firstEntry().getValue()));
+                if (!columns.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("index advisor: could not read indexes of {}: {}", table, e.getMessage());
+        }
+        return columns;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Advice {
+        private final String source;
+        private final String table;
+        private final Set<String> columns;
+
+        @Override
+        public String toString() {
+            return source + " filters " + table + columns + " but no index starts with any of these columns";
+        }
+    }
+}
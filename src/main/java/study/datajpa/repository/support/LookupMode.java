@@ -0,0 +1,8 @@
+package study.datajpa.repository.support;
+
+// 동시에 들어온 같은 조회를 어떻게 합칠지
+public enum LookupMode {
+    DIRECT,        // 합치지 않음 (요청마다 리포지토리 호출)
+    SINGLE_FLIGHT, // 같은 키로 이미 실행 중인 조회가 있으면 그 결과를 같이 사용
+    BATCH          // 짧은 시간 동안 들어온 키를 모아서 in 쿼리 한 번으로 조회
+}
@@ -0,0 +1,98 @@
+package study.datajpa.repository.support;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// window 동안 들어온 서로 다른 키를 모아서 loader 한 번으로 조회 (ex. where id in (...))
+// window가 끝나거나 maxBatchSize 만큼 모이면 executor에서 실행하고, 키마다 결과를 나누어 돌려줌
+public class MicroBatcher<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> loader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    // synchronized(this)로 보호
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+    private long generation;
+
+    public MicroBatcher(Function<Set<K>, Map<K, V>> loader, Duration window, int maxBatchSize,
+                        ScheduledExecutorService scheduler, Executor executor) {
+        this.loader = loader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    public V load(K key) {
+        return SingleFlight.join(submit(key));
+    }
+
+    public CompletableFuture<V> submit(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = pending.get(key);
+            if (future != null) {
+                return future; // 같은 배치에 이미 있는 키
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                long scheduled = generation;
+                scheduler.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flush(long scheduled) {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            if (scheduled != generation || pending.isEmpty()) {
+                return; // maxBatchSize로 이미 실행된 배치
+            }
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> drain() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new HashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RuntimeException e) { // RejectedExecutionException
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void run(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> result = loader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(result.get(key))); // 없는 키는 null
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// @Version 충돌(다른 트랜잭션이 먼저 수정)이 나면 새 트랜잭션에서 처음부터 다시 실행
+// 대기 시간은 지수적으로 늘리되 jitter를 주어 충돌한 스레드들이 동시에 다시 시도하지 않게 함
+// 비관적 락(findLockByUsername)처럼 DB에서 row lock을 기다리며 줄을 서지 않음
+@Slf4j
+@Component
+public class OptimisticRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public OptimisticRetryTemplate(PlatformTransactionManager transactionManager,
+                                   @Value("${datajpa.optimistic-retry.max-attempts:10}") int maxAttempts,
+                                   @Value("${datajpa.optimistic-retry.initial-backoff:10ms}") Duration initialBackoff,
+                                   @Value("${datajpa.optimistic-retry.max-backoff:500ms}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    // work는 매번 새 트랜잭션에서 실행되므로 엔티티를 안에서 다시 조회해야 함
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get()); // 커밋 시점에 version 비교
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("optimistic lock conflict, retry {}/{}", attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    // full jitter : 0 ~ min(max, initial * 2^(attempt-1)) 사이에서 랜덤하게 대기
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("retry interrupted", e);
+        }
+    }
+}
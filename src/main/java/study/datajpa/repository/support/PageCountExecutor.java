@@ -0,0 +1,296 @@
+package study.datajpa.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.DbExecutorConfig;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// content 쿼리와 count 쿼리를 받아서 @CountStrategy에 지정된 방식으로 Page를 만듦
+@Slf4j
+@Component
+public class PageCountExecutor {
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    // 조건(파라미터)마다 항목이 생기므로 개수를 제한하고, 항목마다 @CountStrategy의 ttl이 지나면 제거
+    private final Cache<String, EstimatedCount> estimatedCounts;
+    private final Executor dbExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration timeout;
+    // ASYNC 페이지는 요청 하나가 커넥션을 2개 사용하므로 동시에 실행할 수 있는 수를 풀 크기의 절반 미만으로 제한
+    // 넘치면 커넥션 하나로 content, count를 순서대로 실행
+    private final Semaphore asyncPermits;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public PageCountExecutor(@Qualifier("dbExecutor") Executor dbExecutor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${datajpa.page.timeout:5s}") Duration timeout,
+                             @Value("${datajpa.page.estimated-count.max-size:10000}") long estimatedCountMaxSize,
+                             @Value("${datajpa.page.async-limit:0}") int asyncLimit,
+                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.dbExecutor = dbExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.timeout = timeout;
+        // 0이면 풀 크기에서 계산 (풀 크기 10 -> 4, 나머지 커넥션은 다른 요청이 사용)
+        this.asyncPermits = new Semaphore(asyncLimit > 0 ? asyncLimit : Math.max(1, (poolSize - 1) / 2));
+        this.estimatedCounts = Caffeine.newBuilder()
+                .maximumSize(estimatedCountMaxSize)
+                .expireAfter(new Expiry<String, EstimatedCount>() {
+                    @Override
+                    public long expireAfterCreate(String key, EstimatedCount value, long currentTime) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, EstimatedCount value, long currentTime, long currentDuration) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, EstimatedCount value, long currentTime, long currentDuration) {
+                        return currentDuration; // 조회해도 만료 시간은 그대로
+                    }
+                })
+                .build();
+    }
+
+    // content 쿼리와 count 쿼리를 dbExecutor의 서로 다른 스레드(커넥션)에서 동시에 실행해서 하나의 Page로 합침
+    // 각 쿼리는 읽기 전용 트랜잭션에서 실행되고 끝나면 content는 준영속 상태 -> 지연 로딩이 필요 없는 값(dto 등)으로 만들어서 넘겨야 함
+    // timeout, 쿼리 실패, 반환된 future를 cancel 하면 다른 쪽 쿼리도 취소 (실행 중이면 JDBC Statement를 취소해서 커넥션을 바로 반환)
+    // 동시에 실행 중인 ASYNC 페이지가 asyncPermits를 넘으면 커넥션 하나로 순서대로 실행
+    public <T> CompletableFuture<Page<T>> pageAsync(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        if (!asyncPermits.tryAcquire()) {
+            QueryTask<Page<T>> task = new QueryTask<>(() -> new PageImpl<>(content.get(), pageable, count.getAsLong()));
+            return withTimeout(task.result, task);
+        }
+
+        QueryTask<List<T>> contentTask;
+        QueryTask<Long> countTask;
+        try {
+            contentTask = new QueryTask<>(content);
+        } catch (RejectedExecutionException e) {
+            asyncPermits.release();
+            throw e;
+        }
+        try {
+            countTask = new QueryTask<>(count::getAsLong);
+        } catch (RejectedExecutionException e) {
+            contentTask.cancel();
+            contentTask.finished.whenComplete((v, ex) -> asyncPermits.release());
+            throw e;
+        }
+        // 두 쿼리의 커넥션이 모두 반환된 뒤 permit 반환
+        CompletableFuture.allOf(contentTask.finished, countTask.finished).whenComplete((v, ex) -> asyncPermits.release());
+
+        CompletableFuture<Page<T>> page = contentTask.result
+                .thenCombine(countTask.result, (list, total) -> (Page<T>) new PageImpl<>(list, pageable, total));
+        return withTimeout(page, contentTask, countTask);
+    }
+
+    public <T> Page<T> page(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        Binding binding = CURRENT.get();
+        CountMode mode = binding == null ? CountMode.SKIP_SHORT_PAGE : binding.strategy.value();
+
+        if (mode == CountMode.ESTIMATED) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, () -> estimatedCount(binding, count));
+        }
+        // permit이 없으면(동시에 ASYNC 페이지가 많음) 순차 실행
+        if (mode == CountMode.ASYNC && canRunAsync() && asyncPermits.tryAcquire()) {
+            QueryTask<Long> total;
+            try {
+                total = new QueryTask<>(count::getAsLong);
+            } catch (RejectedExecutionException e) {
+                asyncPermits.release();
+                return PageableExecutionUtils.getPage(content.get(), pageable, count); // executor가 꽉 찼으면 순차 실행
+            }
+            total.finished.whenComplete((v, ex) -> asyncPermits.release());
+            // pageAsync와 같이 timeout이 지나면 count 쿼리를 취소 (permit은 커넥션이 반환된 뒤 돌려받음)
+            CompletableFuture<Long> totalWithTimeout = withTimeout(total.result, total);
+
+            List<T> list;
+            try {
+                list = content.get();
+            } catch (RuntimeException e) {
+                total.cancel();
+                throw e;
+            }
+            return new PageImpl<>(list, pageable, join(totalWithTimeout));
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable, count);
+    }
+
+    // 테스트에서 사용
+    int availableAsyncPermits() {
+        return asyncPermits.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, QueryTask<?>... tasks) {
+        CompletableFuture<T> result = future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((value, ex) -> {
+            if (ex != null) { // timeout, cancel, 쿼리 실패 -> 나머지 쿼리도 취소
+                for (QueryTask<?> task : tasks) {
+                    task.cancel();
+                }
+            }
+        });
+        return result;
+    }
+
+    Long findEstimatedCount(String key) {
+        EstimatedCount estimated = estimatedCounts.getIfPresent(key);
+        return estimated == null ? null : estimated.value;
+    }
+
+    void putEstimatedCount(String key, long value, long ttlSeconds) {
+        estimatedCounts.put(key, new EstimatedCount(value, TimeUnit.SECONDS.toNanos(ttlSeconds)));
+    }
+
+    long estimatedCountSize() {
+        estimatedCounts.cleanUp();
+        return estimatedCounts.estimatedSize();
+    }
+
+    private long estimatedCount(Binding binding, LongSupplier count) {
+        Long cached = findEstimatedCount(binding.key);
+        if (cached != null) {
+            return cached;
+        }
+        long value = count.getAsLong();
+        putEstimatedCount(binding.key, value, binding.strategy.ttlSeconds());
+        return value;
+    }
+
+    // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 데이터가 다른 커넥션에서 보이지 않으므로 같은 커넥션에서 실행
+    // dbExecutor 스레드에서 호출했으면 count를 dbExecutor에 넣고 기다리지 않고 직접 실행 (풀이 꽉 차면 데드락)
+    private boolean canRunAsync() {
+        if (DbExecutorConfig.isDbExecutorThread()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new QueryTimeoutException("count query timed out after " + timeout, e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static Binding bind(Binding binding) {
+        Binding previous = CURRENT.get();
+        CURRENT.set(binding);
+        return previous;
+    }
+
+    static void restore(Binding previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    // dbExecutor에서 읽기 전용 트랜잭션으로 실행하는 쿼리
+    // cancel 시 아직 시작하지 않았으면 실행하지 않고, 실행 중이면 Session.cancelQuery()로 JDBC Statement를 취소
+    private class QueryTask<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>(); // 트랜잭션이 끝나고 커넥션을 반환한 시점
+        private final AtomicReference<Session> session = new AtomicReference<>();
+
+        QueryTask(Supplier<T> query) {
+            dbExecutor.execute(() -> run(query)); // 꽉 찼으면 RejectedExecutionException
+        }
+
+        private void run(Supplier<T> query) {
+            try {
+                if (!result.isDone()) { // 시작 전에 취소됨
+                    result.complete(readOnlyTransaction.execute(status -> {
+                        session.set(em.unwrap(Session.class));
+                        if (result.isDone()) {
+                            throw new CancellationException();
+                        }
+                        return query.get();
+                    }));
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                session.set(null);
+                finished.complete(null);
+            }
+        }
+
+        void cancel() {
+            result.cancel(true);
+            Session running = session.get();
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (RuntimeException e) { // 그 사이 쿼리가 끝나고 세션이 닫힌 경우
+                    log.debug("could not cancel query: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    static class Binding {
+        private final CountStrategy strategy;
+        private final String key;
+
+        Binding(CountStrategy strategy, String key) {
+            this.strategy = strategy;
+            this.key = key;
+        }
+    }
+
+    private static class EstimatedCount {
+        private final long value;
+        private final long ttlNanos;
+
+        EstimatedCount(long value, long ttlNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package study.datajpa.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 엔티티가 로딩(POST_LOAD)되거나 persist 될 때마다 영속성 컨텍스트의 엔티티 수를 확인
+// - 트랜잭션별 최대 엔티티 수(high-water mark)를 jpa.persistence_context.managed.max로 기록
+//   세션(영속성 컨텍스트)마다 따로 기록하므로 REQUIRES_NEW로 시작한 안쪽 트랜잭션은 별도로 기록됨
+// - warnThreshold를 넘으면 트랜잭션마다 한 번 경고 (flush 시 변경 감지 비용, 메모리 증가)
+// - 배치 구간(@BatchPersistenceContext, inBatch)에서는 리포지토리 호출 전(또는 checkpoint)에 clearThreshold 이상이면 flush + clear
+//   쿼리 한 번으로 읽어온 결과는 호출한 쪽이 들고 있으므로 중간에 clear 하지 않음 (findAll 한 번에 전부 읽으면 경고만 남음)
+//   -> 많은 엔티티를 순회할 때는 MemberRepository.forEachMember처럼 나누어 읽어야 함
+@Slf4j
+@Component
+public class PersistenceContextGuard implements PostLoadEventListener, PersistEventListener {
+
+    private static final ThreadLocal<Integer> BATCH_CLEAR_AT = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager em;
+    private final int warnThreshold;
+    private final int clearThreshold;
+
+    private final DistributionSummary highWaterMarks;
+    private final Counter exceeded;
+    private final Counter autoClears;
+    // 세션별 high-water mark (트랜잭션이 끝나면 기록 후 제거)
+    private final Map<SharedSessionContractImplementor, HighWaterMark> marks = new ConcurrentHashMap<>();
+
+    public PersistenceContextGuard(EntityManagerFactory entityManagerFactory,
+                                   EntityManager em,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${datajpa.persistence-context.warn-threshold:5000}") int warnThreshold,
+                                   @Value("${datajpa.persistence-context.clear-threshold:1000}") int clearThreshold) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.em = em;
+        this.warnThreshold = warnThreshold;
+        this.clearThreshold = clearThreshold;
+        this.highWaterMarks = DistributionSummary.builder("jpa.persistence_context.managed.max")
+                .description("Maximum number of managed entities per transaction")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        this.exceeded = meterRegistry.counter("jpa.persistence_context.threshold.exceeded");
+        this.autoClears = meterRegistry.counter("jpa.persistence_context.auto_clear");
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, this);
+        registry.appendListeners(EventType.PERSIST, this); // 기본 persist 처리 다음에 호출됨
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        track(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        track(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) {
+        track(event.getSession());
+    }
+
+    private void track(EventSource session) {
+        if (!session.isTransactionInProgress()) {
+            return;
+        }
+        int managed = session.getPersistenceContextInternal().getNumberOfManagedEntities();
+        HighWaterMark mark = marks.computeIfAbsent(session, s -> {
+            // 세션의 트랜잭션이 끝나면(롤백 포함) 기록
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> afterCompletion(s));
+            return new HighWaterMark();
+        });
+        if (managed > mark.max) {
+            mark.max = managed;
+        }
+        if (managed > warnThreshold && !mark.warned) {
+            mark.warned = true;
+            exceeded.increment();
+            log.warn("persistence context holds {} managed entities (threshold {}), consider @BatchPersistenceContext with chunked reads or paging",
+                    managed, warnThreshold);
+        }
+    }
+
+    private void afterCompletion(SharedSessionContractImplementor session) {
+        HighWaterMark mark = marks.remove(session);
+        if (mark != null) {
+            highWaterMarks.record(mark.max);
+        }
+    }
+
+    // 배치 구간 : action 안에서 리포지토리를 호출할 때마다(또는 checkpoint) clearAt 이상이면 flush + clear
+    public <T, E extends Throwable> T inBatch(int clearAt, BatchAction<T, E> action) throws E {
+        Integer previous = BATCH_CLEAR_AT.get();
+        BATCH_CLEAR_AT.set(clearAt > 0 ? clearAt : clearThreshold);
+        try {
+            return action.run();
+        } finally {
+            if (previous == null) {
+                BATCH_CLEAR_AT.remove();
+            } else {
+                BATCH_CLEAR_AT.set(previous);
+            }
+        }
+    }
+
+    // 리포지토리 호출 직전에 PersistenceContextGuardAspect가 호출
+    // 리포지토리를 거치지 않고 EntityManager로 나누어 읽는 배치는 청크 사이에 직접 호출
+    // 호출한 뒤에는 그 전에 조회한 엔티티가 준영속 상태일 수 있음
+    public void checkpoint() {
+        Integer clearAt = BATCH_CLEAR_AT.get();
+        if (clearAt == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        int managed = managedEntities();
+        if (managed >= clearAt) {
+            em.flush(); // 변경 내용을 먼저 반영해야 clear 해도 유실되지 않음
+            em.clear();
+            autoClears.increment();
+            log.debug("flushed and cleared {} managed entities", managed);
+        }
+    }
+
+    public int managedEntities() {
+        return em.unwrap(SharedSessionContractImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+
+    // 현재 트랜잭션(세션)에서 지금까지의 최대 엔티티 수
+    int highWaterMark() {
+        HighWaterMark mark = marks.get(em.unwrap(SharedSessionContractImplementor.class));
+        return mark == null ? 0 : mark.max;
+    }
+
+    private static class HighWaterMark {
+        private int max;
+        private boolean warned;
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.stereotype.Component;
+
+// @BatchPersistenceContext 메서드 안의 리포지토리 호출 경계에서 영속성 컨텍스트 크기를 확인
+// flush/clear는 리포지토리 호출 시점에 트랜잭션이 있을 때만 하므로 @Transactional과의 순서는 상관없음
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class PersistenceContextGuardAspect {
+
+    private final PersistenceContextGuard guard;
+
+    @Around("@annotation(batch)")
+    public Object batch(ProceedingJoinPoint joinPoint, BatchPersistenceContext batch) throws Throwable {
+        return guard.inBatch(batch.clearAt(), joinPoint::proceed);
+    }
+
+    @Before("target(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public void beforeRepositoryCall() {
+        guard.checkpoint();
+    }
+}
@@ -0,0 +1,207 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Member insert/update/delete를 flush 할 때 팀별 회원 수, 나이 합계 증감을 모아두고
+// flush가 끝나면 같은 트랜잭션에서 "member_count = member_count + ?" 로 DB에서 직접 증감
+// - Team 엔티티를 수정하지 않으므로 @Version 충돌 X, 팀 프록시 초기화 X, 준영속 팀이어도 유실 X
+// - 같은 팀에 동시에 회원이 추가되어도 행 락으로 순서대로 반영 (낙관적 락 예외 X)
+// - 2차 캐시는 전체 region이 아니라 바뀐 팀만 제거
+@Slf4j
+@Component
+public class TeamAggregateListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, FlushEventListener, AutoFlushEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    // 세션(영속성 컨텍스트)별로 아직 반영하지 않은 증감
+    private final Map<EventSource, Pending> pending = new ConcurrentHashMap<>();
+
+    private String updateSql;
+    private int teamIndex;
+    private int ageIndex;
+
+    public TeamAggregateListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor factory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+        // 테이블, 컬럼 이름은 naming strategy가 적용된 매핑에서 가져옴
+        AbstractEntityPersister team = (AbstractEntityPersister) factory.getMetamodel().entityPersister(Team.class);
+        updateSql = "update " + team.getTableName()
+                + " set " + team.getPropertyColumnNames("memberCount")[0] + " = " + team.getPropertyColumnNames("memberCount")[0] + " + ?"
+                + ", " + team.getPropertyColumnNames("ageSum")[0] + " = " + team.getPropertyColumnNames("ageSum")[0] + " + ?"
+                + " where " + team.getIdentifierColumnNames()[0] + " = ?";
+        EntityMetamodel member = factory.getMetamodel().entityPersister(Member.class).getEntityMetamodel();
+        teamIndex = member.getPropertyIndex("team");
+        ageIndex = member.getPropertyIndex("age");
+
+        EventListenerRegistry registry = factory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        // 기본 flush 처리(insert/update/delete 실행) 다음에 호출됨
+        registry.appendListeners(EventType.FLUSH, this);
+        registry.appendListeners(EventType.AUTO_FLUSH, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getState();
+            add(event.getSession(), teamId(state[teamIndex]), 1, (int) state[ageIndex]);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object[] oldState = event.getOldState();
+        if (oldState == null) { // 이전 상태를 모르는 경우 (session.update) : TeamAggregateReconciler가 보정
+            log.debug("no previous state for {}, team aggregates left to reconciler", event.getEntity());
+            return;
+        }
+        Object[] state = event.getState();
+        Long oldTeamId = teamId(oldState[teamIndex]);
+        Long teamId = teamId(state[teamIndex]);
+        int oldAge = (int) oldState[ageIndex];
+        int age = (int) state[ageIndex];
+        if (oldTeamId != null && oldTeamId.equals(teamId)) {
+            if (oldAge != age) {
+                add(event.getSession(), teamId, 0, age - oldAge);
+            }
+            return;
+        }
+        add(event.getSession(), oldTeamId, -1, -oldAge);
+        add(event.getSession(), teamId, 1, age);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getDeletedState();
+            add(event.getSession(), teamId(state[teamIndex]), -1, -(int) state[ageIndex]);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        apply(event.getSession());
+    }
+
+    private void add(EventSource session, Long teamId, long count, long age) {
+        if (teamId == null) {
+            return;
+        }
+        Pending p = pending.computeIfAbsent(session, s -> {
+            // 트랜잭션이 끝나면(롤백 포함) 정리하고, 커밋이면 바뀐 팀을 2차 캐시에서 제거
+            s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> afterCompletion(s, success));
+            return new Pending();
+        });
+        long[] delta = p.deltas.computeIfAbsent(teamId, id -> new long[2]);
+        delta[0] += count;
+        delta[1] += age;
+    }
+
+    private void apply(EventSource session) {
+        Pending p = pending.get(session);
+        if (p == null || p.deltas.isEmpty()) {
+            return;
+        }
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        jdbc.executeBatch(); // 배치로 모아둔 insert가 먼저 실행되어야 새 팀 행이 있음
+        PreparedStatement ps = jdbc.getStatementPreparer().prepareStatement(updateSql);
+        try {
+            // 팀 id 순서로 update (여러 팀을 바꾸는 트랜잭션끼리 데드락 방지)
+            for (Map.Entry<Long, long[]> entry : p.deltas.entrySet()) {
+                long[] delta = entry.getValue();
+                if (delta[0] == 0 && delta[1] == 0) {
+                    continue;
+                }
+                ps.setLong(1, delta[0]);
+                ps.setLong(2, delta[1]);
+                ps.setLong(3, entry.getKey());
+                jdbc.getResultSetReturn().executeUpdate(ps);
+                // 이 트랜잭션 안에서 다시 조회하면 DB 값을 읽도록 바로 제거 (커밋 후에도 한 번 더 제거)
+                session.getFactory().getCache().evictEntityData(Team.class, entry.getKey());
+                p.evict.add(entry.getKey());
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not update team aggregates", updateSql);
+        } finally {
+            p.deltas.clear();
+            jdbc.getLogicalConnection().getResourceRegistry().release(ps);
+            jdbc.afterStatementExecution();
+        }
+    }
+
+    private void afterCompletion(EventSource session, boolean success) {
+        Pending p = pending.remove(session);
+        if (success && p != null) {
+            p.evict.forEach(id -> session.getFactory().getCache().evictEntityData(Team.class, id));
+        }
+    }
+
+    // 프록시를 초기화하지 않고 id만 꺼냄
+    private Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static class Pending {
+        private final Map<Long, long[]> deltas = new TreeMap<>();
+        private final Set<Long> evict = new HashSet<>();
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+// Team의 회원 수, 나이 합계를 실제 회원 데이터와 비교해서 어긋난 팀만 보정
+// (벌크 delete, 직접 수정한 SQL 등 엔티티를 거치지 않은 변경으로 생긴 차이)
+@Slf4j
+@Component
+public class TeamAggregateReconciler {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TeamAggregateReconciler(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.team-aggregate.reconcile-interval:PT10M}",
+            initialDelayString = "${datajpa.team-aggregate.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        int repaired = reconcile();
+        if (repaired > 0) {
+            log.warn("team aggregates drifted, repaired {} team(s)", repaired);
+        }
+    }
+
+    // 보정한 팀 수 반환
+    public int reconcile() {
+        // 1. 전체 팀을 한 번에 비교해서 어긋난 팀만 찾음
+        List<Long> drifted = transactionTemplate.execute(status -> em.createQuery(
+                        "select t.id from Team t left join t.members m" +
+                                " group by t.id, t.memberCount, t.ageSum" +
+                                " having t.memberCount <> count(m) or t.ageSum <> coalesce(sum(m.age), 0)", Long.class)
+                .getResultList());
+
+        // 2. 팀마다 락을 걸고 다시 계산 (그 사이에 회원이 추가/삭제되어도 정확하게 반영)
+        int repaired = 0;
+        for (Long teamId : drifted) {
+            Boolean changed = transactionTemplate.execute(status -> {
+                Team team = em.find(Team.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+                if (team == null) {
+                    return false;
+                }
+                Object[] actual = em.createQuery(
+                                "select count(m), coalesce(sum(m.age), 0) from Member m where m.team.id = :teamId", Object[].class)
+                        .setParameter("teamId", teamId)
+                        .getSingleResult();
+                long memberCount = ((Number) actual[0]).longValue();
+                long ageSum = ((Number) actual[1]).longValue();
+                if (team.getMemberCount() == memberCount && team.getAgeSum() == ageSum) {
+                    return false;
+                }
+                // 집계 컬럼은 updatable = false 이므로 update 쿼리로 보정
+                em.createQuery("update Team t set t.memberCount = :memberCount, t.ageSum = :ageSum where t.id = :teamId")
+                        .setParameter("memberCount", memberCount)
+                        .setParameter("ageSum", ageSum)
+                        .setParameter("teamId", teamId)
+                        .executeUpdate();
+                return true;
+            });
+            if (Boolean.TRUE.equals(changed)) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+}
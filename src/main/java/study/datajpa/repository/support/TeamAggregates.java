@@ -0,0 +1,50 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// 엔티티를 거치지 않는 벌크 연산에서 Team의 회원 수, 나이 합계를 같이 맞춤 (호출한 쪽 트랜잭션에서 실행)
+// 엔티티 단위 변경은 TeamAggregateListener가 반영
+@Component
+@RequiredArgsConstructor
+public class TeamAggregates {
+
+    private final EntityManager em;
+
+    // "update Member m set m.age = m.age + 1 where m.age >= :age" 보다 먼저 호출해야 함
+    // (update 후에는 age - 1 이었던 회원도 조건에 걸리므로 대상 회원 수가 달라짐)
+    // fromId, toId가 있으면 그 id 범위의 회원만 반영 (청크 단위 update)
+    public int beforeAgePlus(int age, Long fromId, Long toId) {
+        String jpql = "select m.team.id, count(m) from Member m where m.team is not null and m.age >= :age";
+        if (fromId != null) {
+            jpql += " and m.id between :fromId and :toId";
+        }
+        TypedQuery<Object[]> query = em.createQuery(jpql + " group by m.team.id", Object[].class)
+                .setParameter("age", age);
+        if (fromId != null) {
+            query.setParameter("fromId", fromId).setParameter("toId", toId);
+        }
+
+        // 증가량이 같은 팀끼리 모아서 in 쿼리 한 번으로 update (팀 수만큼 쿼리가 나가지 않게)
+        Map<Long, List<Long>> teamsByDelta = new TreeMap<>();
+        for (Object[] row : query.getResultList()) {
+            teamsByDelta.computeIfAbsent((Long) row[1], delta -> new ArrayList<>()).add((Long) row[0]);
+        }
+
+        int updated = 0;
+        for (Map.Entry<Long, List<Long>> entry : teamsByDelta.entrySet()) {
+            updated += em.createQuery("update Team t set t.ageSum = t.ageSum + :delta where t.id in :ids")
+                    .setParameter("delta", entry.getKey())
+                    .setParameter("ids", entry.getValue())
+                    .executeUpdate();
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// SQL 로그를 고정 크기 버퍼(ArrayBlockingQueue, 원형 배열)에 넣기만 하고 별도 스레드가 로그를 씀
+// JDBC를 호출한 스레드는 로그 I/O를 기다리지 않음, 버퍼가 꽉 차면 기다리지 않고 버림 (sql.log.dropped)
+@Component
+public class AsyncSqlLogWriter implements DisposableBean {
+
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("sql");
+    private static final int DRAIN_SIZE = 256;
+
+    private final BlockingQueue<Line> buffer;
+    private final Counter dropped;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncSqlLogWriter(MeterRegistry meterRegistry,
+                             @Value("${datajpa.sql-log.buffer-size:8192}") int bufferSize) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.dropped = meterRegistry.counter("sql.log.dropped");
+        this.worker = new Thread(this::drain, "sql-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public boolean info(String message) {
+        return offer(new Line(false, message));
+    }
+
+    public boolean warn(String message) {
+        return offer(new Line(true, message));
+    }
+
+    private boolean offer(Line line) {
+        if (buffer.offer(line)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void drain() {
+        List<Line> lines = new ArrayList<>(DRAIN_SIZE);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Line first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                lines.add(first);
+                buffer.drainTo(lines, DRAIN_SIZE - 1); // 쌓여있는 로그는 한 번에 가져옴
+                for (Line line : lines) {
+                    if (line.warn) {
+                        SQL_LOG.warn(line.message);
+                    } else {
+                        SQL_LOG.info(line.message);
+                    }
+                }
+                lines.clear();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false; // 남은 로그는 쓰고 종료
+        worker.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    private static class Line {
+        private final boolean warn;
+        private final String message;
+
+        private Line(boolean warn, String message) {
+            this.warn = warn;
+            this.message = message;
+        }
+    }
+}
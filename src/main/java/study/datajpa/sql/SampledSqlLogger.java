@@ -0,0 +1,181 @@
+package study.datajpa.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// p6spy 기본 로그(모든 SQL + 바인딩 값) 대신 사용하는 로그 (decorator.datasource.p6spy.enable-logging: false)
+// 1. sampleRate 비율만 바인딩 값까지 로그로 남김 (느린 SQL은 SlowQueryLog가 항상 남김)
+// 2. 같은 SQL(? 파라미터 형태)끼리 실행 횟수, 전체/최대 시간을 모아서 summaryInterval마다 요약 로그로 남김
+// 로그는 AsyncSqlLogWriter를 통해 별도 스레드에서 씀
+@Component
+public class SampledSqlLogger extends JdbcEventListener {
+
+    private static final String OTHER = "<other>";
+
+    private final AsyncSqlLogWriter writer;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int maxShapes;
+    private final int summaryTop;
+
+    // SQL 종류별 누적 통계 : map은 계속 사용하고 요약할 때 값만 읽고 0으로 초기화 (map을 교체하면 그 사이 기록이 유실됨)
+    private final Map<String, ShapeCounter> shapes = new ConcurrentHashMap<>();
+    // 직전 요약에서 map에서 뺀 통계 : 빼기 직전에 꺼내 간 스레드가 기록할 수 있으므로 다음 요약에서 한 번 더 읽고 버림
+    private List<ShapeCounter> retired = new ArrayList<>();
+
+    public SampledSqlLogger(AsyncSqlLogWriter writer,
+                            @Value("${datajpa.sql-log.enabled:true}") boolean enabled,
+                            @Value("${datajpa.sql-log.sample-rate:0.01}") double sampleRate,
+                            @Value("${datajpa.sql-log.max-shapes:1000}") int maxShapes,
+                            @Value("${datajpa.sql-log.summary-top:20}") int summaryTop) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.maxShapes = maxShapes;
+        this.summaryTop = summaryTop;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!enabled) {
+            return;
+        }
+        record(statementInformation.getSql(), timeElapsedNanos, e != null);
+
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            // 바인딩 값이 들어간 SQL 문자열은 샘플링된 경우에만 만듦
+            writer.info("sampled " + timeElapsedNanos / 1_000_000 + "ms : " + statementInformation.getSqlWithValues());
+        }
+    }
+
+    void record(String sql, long nanos, boolean error) {
+        ShapeCounter counter = shapes.get(sql);
+        if (counter == null) {
+            // 종류가 너무 많으면 (ex. 값이 SQL에 그대로 들어간 경우) 메모리가 계속 늘지 않도록 하나로 모음
+            counter = shapes.computeIfAbsent(shapes.size() < maxShapes ? sql : OTHER, ShapeCounter::new);
+        }
+        counter.record(nanos, error);
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.sql-log.summary-interval:PT1M}",
+            initialDelayString = "${datajpa.sql-log.summary-interval:PT1M}")
+    public void logSummary() {
+        List<ShapeStats> summary = summarize();
+        if (summary.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("sql summary (top ").append(summaryTop).append(" by total time)");
+        for (ShapeStats stats : summary.subList(0, Math.min(summaryTop, summary.size()))) {
+            sb.append(String.format("%n  %6d calls, total %6dms, avg %6.2fms, max %5dms, errors %d : %s",
+                    stats.getCount(), stats.getTotalMillis(), stats.getAvgMillis(), stats.getMaxMillis(),
+                    stats.getErrors(), stats.getSql()));
+        }
+        writer.info(sb.toString());
+    }
+
+    // 지난 요약 이후 모인 통계를 전체 시간 순서로 반환하고 초기화
+    public synchronized List<ShapeStats> summarize() {
+        Map<String, ShapeStats> result = new HashMap<>();
+        for (ShapeCounter counter : retired) {
+            merge(result, counter.drain());
+        }
+        retired = new ArrayList<>();
+
+        for (ShapeCounter counter : shapes.values()) {
+            ShapeStats stats = counter.drain();
+            if (stats.getCount() > 0) {
+                merge(result, stats);
+            } else if (shapes.remove(counter.sql, counter)) {
+                // 한 주기 동안 실행되지 않은 SQL은 제거 (max-shapes를 더 이상 쓰지 않는 SQL이 차지하지 않도록)
+                retired.add(counter);
+            }
+        }
+
+        List<ShapeStats> sorted = new ArrayList<>(result.values());
+        sorted.sort(Comparator.comparingLong(ShapeStats::getTotalMillis).reversed());
+        return sorted;
+    }
+
+    private static void merge(Map<String, ShapeStats> result, ShapeStats stats) {
+        if (stats.getCount() > 0) {
+            result.merge(stats.getSql(), stats, ShapeStats::plus);
+        }
+    }
+
+    // 요약 한 번에 해당하는 SQL 종류별 통계
+    @Getter
+    public static class ShapeStats {
+        private final String sql;
+        private final long count;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        ShapeStats(String sql, long count, long errors, long totalNanos, long maxNanos) {
+            this.sql = sql;
+            this.count = count;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        ShapeStats plus(ShapeStats other) {
+            return new ShapeStats(sql, count + other.count, errors + other.errors,
+                    totalNanos + other.totalNanos, Math.max(maxNanos, other.maxNanos));
+        }
+
+        public long getTotalMillis() {
+            return totalNanos / 1_000_000;
+        }
+
+        public long getMaxMillis() {
+            return maxNanos / 1_000_000;
+        }
+
+        public double getAvgMillis() {
+            return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+        }
+    }
+
+    private static class ShapeCounter {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder errors = new LongAdder();
+
+        ShapeCounter(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, boolean error) {
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (error) {
+                errors.increment();
+            }
+            count.increment(); // 마지막에 증가 -> drain에서 count를 먼저 읽으므로 센 실행의 시간은 이미 더해져 있음
+        }
+
+        // 값을 읽으면서 0으로 초기화 : 동시에 기록된 실행은 이번 또는 다음 요약에 들어가고 유실되지 않음
+        ShapeStats drain() {
+            long count = this.count.sumThenReset();
+            return new ShapeStats(sql, count, errors.sumThenReset(), totalNanos.sumThenReset(), maxNanos.getThenReset());
+        }
+    }
+}
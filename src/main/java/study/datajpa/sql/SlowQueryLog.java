@@ -0,0 +1,79 @@
+package study.datajpa.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// threshold보다 오래 걸린 SQL만 로그로 남김 (바인딩 파라미터 포함, AsyncSqlLogWriter로 별도 스레드에서 씀)
+// 느린 SQL이 몰릴 때 로그가 폭주하지 않도록 sampleRate 비율만 기록 (건수는 sql.slow 카운터로 모두 집계)
+// threshold, sampleRate, enabled는 /actuator/hibernate 에서 재시작 없이 변경 가능
+@Getter
+@Component
+public class SlowQueryLog extends JdbcEventListener {
+
+    private volatile boolean enabled;
+    private volatile long thresholdNanos;
+    private volatile double sampleRate;
+
+    private final Counter slowCounter;
+    private final AsyncSqlLogWriter writer;
+
+    public SlowQueryLog(MeterRegistry meterRegistry,
+                        AsyncSqlLogWriter writer,
+                        @Value("${datajpa.slow-query.enabled:true}") boolean enabled,
+                        @Value("${datajpa.slow-query.threshold:200ms}") Duration threshold,
+                        @Value("${datajpa.slow-query.sample-rate:1.0}") double sampleRate) {
+        this.slowCounter = meterRegistry.counter("sql.slow");
+        this.writer = writer;
+        this.enabled = enabled;
+        setThreshold(threshold); // 설정 값도 실행 중 변경과 같은 범위로 검증
+        setSampleRate(sampleRate);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!enabled || timeElapsedNanos < thresholdNanos) {
+            return; // 대부분의 SQL은 비교 한 번으로 끝남
+        }
+        slowCounter.increment();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        writer.warn("slow query " + timeElapsedNanos / 1_000_000 + "ms (threshold " + thresholdNanos / 1_000_000 + "ms)"
+                + (e == null ? "" : " failed") + " : " + statementInformation.getSqlWithValues());
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    public void setThreshold(Duration threshold) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+        }
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (!isValidSampleRate(sampleRate)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public static boolean isValidSampleRate(double sampleRate) {
+        return sampleRate >= 0 && sampleRate <= 1; // NaN도 false
+    }
+}
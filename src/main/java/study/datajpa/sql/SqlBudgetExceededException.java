@@ -0,0 +1,8 @@
+package study.datajpa.sql;
+
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
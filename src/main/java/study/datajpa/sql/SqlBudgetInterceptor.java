@@ -0,0 +1,42 @@
+package study.datajpa.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 요청 하나에서 실행된 SQL 개수를 셈 (WebConfig에서 등록)
+@Component
+@RequiredArgsConstructor
+public class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private final SqlBudgetListener sqlBudgetListener;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.start(request.getMethod() + " " + request.getRequestURI());
+        request.setAttribute(SqlBudgetListener.REQUEST_SCOPE_ATTRIBUTE, scope);
+        return true;
+    }
+
+    // 비동기 요청 (DeferredResult 등) : 요청 스레드가 먼저 반환되므로 이 스레드에 남은 scope를 정리
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.Scope scope = (SqlStatementCounter.Scope) request.getAttribute(SqlBudgetListener.REQUEST_SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlStatementCounter.Scope scope = (SqlStatementCounter.Scope) request.getAttribute(SqlBudgetListener.REQUEST_SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SqlBudgetListener.REQUEST_SCOPE_ATTRIBUTE);
+            scope.close();
+            sqlBudgetListener.report("request", scope);
+        }
+    }
+}
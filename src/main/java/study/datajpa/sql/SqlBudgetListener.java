@@ -0,0 +1,115 @@
+package study.datajpa.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+// p6spy가 SQL 실행마다 호출 (JdbcEventListener 빈은 p6spy-spring-boot-starter가 자동 등록)
+// 트랜잭션/요청 단위로 실행된 SQL 개수와 같은 SQL 반복(N + 1)을 세고 budget을 넘으면 경고 (fail = true 이면 예외)
+@Slf4j
+@Component
+public class SqlBudgetListener extends JdbcEventListener {
+
+    static final String REQUEST_SCOPE_ATTRIBUTE = SqlBudgetListener.class.getName() + ".SCOPE";
+    private static final Object TRANSACTION_SCOPE_KEY = new Object();
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final int maxRepeats;
+    private final boolean fail;
+
+    public SqlBudgetListener(MeterRegistry meterRegistry,
+                             @Value("${datajpa.sql-budget.max-statements:50}") int maxStatements,
+                             @Value("${datajpa.sql-budget.max-repeats:10}") int maxRepeats,
+                             @Value("${datajpa.sql-budget.fail:false}") boolean fail) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+        this.fail = fail;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatementCounter.Scope transactionScope = transactionScope();
+        SqlStatementCounter.record(statementInformation.getSql());
+
+        if (fail) { // 초과한 SQL을 실행한 지점에서 바로 실패
+            failIfExceeded(transactionScope);
+            failIfExceeded(requestScope());
+        }
+    }
+
+    // 요청/트랜잭션이 끝날 때 호출 : metrics 기록 + budget 초과 시 경고
+    void report(String type, SqlStatementCounter.Scope scope) {
+        meterRegistry.summary("sql.statements", "scope", type).record(scope.getCount());
+
+        if (scope.getMaxRepeats() > maxRepeats) {
+            meterRegistry.counter("sql.n_plus_one.suspected", "scope", type).increment();
+            for (Map.Entry<String, Integer> entry : scope.getDuplicates().entrySet()) {
+                if (entry.getValue() > maxRepeats) {
+                    log.warn("[{}] same statement executed {} times (N + 1?) : {}", scope.getName(), entry.getValue(), entry.getKey());
+                }
+            }
+        }
+        if (scope.getCount() > maxStatements) {
+            meterRegistry.counter("sql.budget.exceeded", "scope", type).increment();
+            log.warn("[{}] executed {} statements (budget {})", scope.getName(), scope.getCount(), maxStatements);
+        }
+    }
+
+    // 트랜잭션에서 첫 SQL이 실행될 때 scope를 만들고 트랜잭션이 끝나면 report
+    private SqlStatementCounter.Scope transactionScope() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        SqlStatementCounter.Scope scope = (SqlStatementCounter.Scope) TransactionSynchronizationManager.getResource(TRANSACTION_SCOPE_KEY);
+        if (scope != null) {
+            return scope;
+        }
+
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        SqlStatementCounter.Scope newScope = SqlStatementCounter.start("transaction " + (name == null ? "" : name));
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SCOPE_KEY, newScope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SCOPE_KEY);
+                newScope.close();
+                report("transaction", newScope);
+            }
+        });
+        return newScope;
+    }
+
+    private SqlStatementCounter.Scope requestScope() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (SqlStatementCounter.Scope) attributes.getAttribute(REQUEST_SCOPE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private void failIfExceeded(SqlStatementCounter.Scope scope) {
+        if (scope == null || !SqlStatementCounter.isActive(scope)) {
+            return;
+        }
+        if (scope.getCount() > maxStatements) {
+            throw new SqlBudgetExceededException("[" + scope.getName() + "] executed " + scope.getCount()
+                    + " statements (budget " + maxStatements + ")");
+        }
+        if (scope.getMaxRepeats() > maxRepeats) {
+            throw new SqlBudgetExceededException("[" + scope.getName() + "] same statement executed more than "
+                    + maxRepeats + " times (N + 1?) : " + scope.getDuplicates().keySet());
+        }
+    }
+}
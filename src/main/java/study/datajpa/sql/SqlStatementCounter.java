@@ -0,0 +1,96 @@
+package study.datajpa.sql;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// 현재 스레드에서 실행된 SQL 개수를 구간(scope)별로 셈 (p6spy SqlBudgetListener가 record 호출)
+// 요청, 트랜잭션, 테스트 구간이 겹쳐도 열려 있는 모든 scope에 기록
+//
+// 테스트에서 사용 :
+// try (SqlStatementCounter.Scope scope = SqlStatementCounter.start("findMemberFetchJoin")) {
+//     memberRepository.findMemberFetchJoin();
+//     assertThat(scope.getCount()).isEqualTo(1);
+// }
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private SqlStatementCounter() {
+    }
+
+    public static Scope start(String name) {
+        Scope scope = new Scope(name);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    // 실행된 SQL 개수만 필요할 때
+    public static long count(Runnable action) {
+        try (Scope scope = start("count")) {
+            action.run();
+            return scope.getCount();
+        }
+    }
+
+    static void record(String sql) {
+        for (Scope scope : SCOPES.get()) {
+            scope.record(sql);
+        }
+    }
+
+    static boolean isActive(Scope scope) {
+        return SCOPES.get().contains(scope);
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Map<String, Integer> statements = new LinkedHashMap<>(); // SQL 모양(파라미터 ?)별 실행 횟수
+        private long count;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        private void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        // 같은 SQL이 여러 번 실행된 경우 (N + 1 의심)
+        public Map<String, Integer> getDuplicates() {
+            return statements.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 1)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        public int getMaxRepeats() {
+            return statements.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            scopes.remove(this);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+    }
+}
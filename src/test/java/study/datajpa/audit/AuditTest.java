@@ -0,0 +1,57 @@
+package study.datajpa.audit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class AuditTest {
+
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void batchPinnedAudit() {
+        memberRepository.saveAllBatched(Stream.of(
+                new Member("audit1", 10), new Member("audit2", 10), new Member("audit3", 10)));
+
+        List<Member> members = memberRepository.findByNames(List.of("audit1", "audit2", "audit3"));
+        assertThat(members).hasSize(3);
+        // 배치 안에서는 모두 같은 등록일/등록자
+        assertThat(members).extracting("creadtedDate").containsOnly(members.get(0).getCreadtedDate());
+        assertThat(members).extracting("createdBy").containsOnly(members.get(0).getCreatedBy());
+        assertThat(members.get(0).getCreadtedDate()).isNotNull();
+        assertThat(members.get(0).getCreatedBy()).isNotNull();
+    }
+
+    @Test
+    public void sameAuditorInThread() {
+        RequestAuditorAware auditorAware = new RequestAuditorAware();
+        String auditor = auditorAware.getCurrentAuditor().get();
+
+        assertThat(auditorAware.getCurrentAuditor()).contains(auditor);
+        assertThat(UUID.fromString(auditor).version()).isEqualTo(4);
+    }
+
+    @Test
+    public void coarseClock() {
+        CoarseDateTimeProvider provider = new CoarseDateTimeProvider(Duration.ofMinutes(1));
+        LocalDateTime now = provider.now();
+
+        // 1분 단위로 잘리므로 초, 나노초가 0
+        assertThat(now.getSecond()).isZero();
+        assertThat(now.getNano()).isZero();
+        assertThat(provider.now()).isSameAs(now);
+    }
+}
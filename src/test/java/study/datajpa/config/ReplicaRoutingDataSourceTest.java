@@ -0,0 +1,81 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 메모리 H2 두 개(primary, replica)로 라우팅 확인 (스프링 컨텍스트 없이)
+class ReplicaRoutingDataSourceTest {
+
+    @Test
+    public void routeByReadOnly() {
+        DataSource primary = h2("routing-primary");
+        DataSource replica = h2("routing-replica");
+        DataSource dataSource = routing(primary, new ReplicaPoolDataSource(List.of(replica), primary, Duration.ofSeconds(30)));
+
+        assertThat(query(dataSource, false)).isEqualTo("routing-primary");
+        assertThat(query(dataSource, true)).isEqualTo("routing-replica");
+    }
+
+    @Test
+    public void roundRobin() {
+        DataSource primary = h2("rr-primary");
+        DataSource dataSource = routing(primary, new ReplicaPoolDataSource(
+                List.of(h2("rr-replica1"), h2("rr-replica2")), primary, Duration.ofSeconds(30)));
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            names.add(query(dataSource, true));
+        }
+        assertThat(names).containsExactly("rr-replica1", "rr-replica2", "rr-replica1", "rr-replica2");
+    }
+
+    @Test
+    public void failoverToPrimary() {
+        DataSource primary = h2("failover-primary");
+        // 아무도 listen하지 않는 포트 -> 커넥션 획득 실패
+        DriverManagerDataSource broken = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/~/failover-broken", "sa", "");
+        ReplicaPoolDataSource replicas = new ReplicaPoolDataSource(Arrays.asList(broken, h2("failover-replica")), primary, Duration.ofSeconds(30));
+        DataSource dataSource = routing(primary, replicas);
+
+        // 실패한 replica는 건너뛰고 다른 replica 사용
+        assertThat(query(dataSource, true)).isEqualTo("failover-replica");
+        assertThat(replicas.isAvailable(0)).isFalse();
+        assertThat(query(dataSource, true)).isEqualTo("failover-replica");
+
+        // replica가 모두 실패하면 primary
+        ReplicaPoolDataSource allBroken = new ReplicaPoolDataSource(List.of(broken), primary, Duration.ofSeconds(30));
+        assertThat(query(routing(primary, allBroken), true)).isEqualTo("failover-primary");
+    }
+
+    private String query(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template.execute(status -> new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private DataSource routing(DataSource primary, DataSource replicas) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas));
+    }
+
+    // 어느 DB에서 조회했는지 알 수 있도록 node 테이블에 이름을 저장
+    private DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(50))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 라우팅을 켠 컨텍스트 (primary, replica 모두 같은 메모리 H2)
+// 어느 풀의 커넥션인지 알 수 있도록 커넥션마다 세션 변수 @NODE를 설정 (INIT은 커넥션을 열 때마다 실행됨)
+@SpringBootTest(properties = {
+        "datajpa.datasource.routing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:routing-jpa;DB_CLOSE_DELAY=-1;INIT=SET @NODE = 'primary'",
+        "datajpa.datasource.replica-urls=jdbc:h2:mem:routing-jpa;DB_CLOSE_DELAY=-1;INIT=SET @NODE = 'replica'",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class RoutingDataSourceConfigTest {
+
+    @Autowired RoutingDataSourceConfig routingDataSourceConfig;
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    @Transactional(readOnly = true)
+    public void readOnlyTransactionUsesReplica() {
+        // JPA 조회가 실행된 커넥션(트랜잭션 동안 유지)이 replica 풀의 커넥션
+        memberRepository.findUsernameList();
+        assertThat(node()).isEqualTo("replica");
+    }
+
+    @Test
+    @Transactional
+    public void writeTransactionUsesPrimary() {
+        memberRepository.save(new Member("routingPrimary", 10));
+        memberRepository.flush();
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    public void hikariPropertiesApplied() {
+        // spring.datasource.hikari.* 설정이 primary, replica 풀 모두에 적용됨
+        assertThat(routingDataSourceConfig.pools()).hasSize(2);
+        for (HikariDataSource pool : routingDataSourceConfig.pools()) {
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(4);
+            assertThat(pool.getConnectionTimeout()).isEqualTo(2000);
+        }
+    }
+
+    private String node() {
+        return (String) em.createNativeQuery("select @NODE").getSingleResult();
+    }
+}
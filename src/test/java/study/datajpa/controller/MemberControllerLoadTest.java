@@ -0,0 +1,88 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import study.datajpa.repository.MemberRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ./gradlew benchmark 로 실행
+// 커넥션 풀(4개)보다 훨씬 많은 동시 요청(64개)에서 동기 / 비동기 엔드포인트의 처리량, 503 비율 비교
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "datajpa.db-executor.queue-capacity=32",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "logging.level.org.hibernate.SQL=warn"
+})
+class MemberControllerLoadTest {
+
+    private static final int CONCURRENCY = 64;
+    private static final int REQUESTS_PER_CLIENT = 50;
+
+    @LocalServerPort int port;
+    @Autowired MemberRepository memberRepository;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    public void syncVsAsync() throws Exception {
+        Long id = memberRepository.findByUsername("user0").getId(); // MemberController.init 에서 저장한 회원
+
+        run("warm-up", "/members/" + id);
+        run("sync  /members/{id}", "/members/" + id);
+        run("async /async/members/{id}", "/async/members/" + id);
+        run("sync  /members", "/members?page=0&size=20");
+        run("async /async/members", "/async/members?page=0&size=20");
+    }
+
+    private void run(String name, String path) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + path);
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            futures.add(clients.submit(() -> {
+                for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    statuses.computeIfAbsent(response.statusCode(), code -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        clients.shutdown();
+
+        int total = CONCURRENCY * REQUESTS_PER_CLIENT;
+        System.out.printf("%-28s : %6d req/s, statuses = %s%n", name, total * 1000L / elapsedMillis, statuses);
+
+        // 과부하 상황에서도 정상 응답 또는 빠른 503만 있어야 함 (500, 타임아웃 X)
+        assertThat(statuses.keySet()).isSubsetOf(200, 503);
+        assertThat(statuses.get(200)).isNotNull();
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.CursorResponse;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberControllerTest {
+
+    @Autowired MemberController memberController;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManager em;
+
+    @Test
+    public void listByCursorWithTeamName() {
+        Team team = teamRepository.save(new Team("cursorTeam"));
+        Member member = memberRepository.save(new Member("cursorTeamMember", 10, team));
+        em.flush();
+        em.clear();
+
+        // 바로 앞 위치를 cursor로 주면 저장한 회원이 첫 번째로 조회됨
+        String cursor = new MemberCursor("cursorTeamMember", member.getId() - 1).encode();
+        CursorResponse<MemberDto> response = memberController.listByCursor(cursor, 1);
+
+        // /members/dto 와 같이 teamName까지 채워짐
+        assertThat(response.getContent()).extracting("id", "teamName")
+                .containsExactly(tuple(member.getId(), "cursorTeam"));
+    }
+}
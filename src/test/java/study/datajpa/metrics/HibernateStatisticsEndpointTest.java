@@ -0,0 +1,107 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.sql.SlowQueryLog;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class HibernateStatisticsEndpointTest {
+
+    @Autowired HibernateStatisticsEndpoint hibernateStatisticsEndpoint;
+    @Autowired SlowQueryLog slowQueryLog;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void statistics() {
+        memberRepository.save(new Member("statistics", 10));
+        memberRepository.findUser("statistics", 10);
+
+        Map<String, Object> statistics = hibernateStatisticsEndpoint.statistics(5);
+        System.out.println("statistics = " + statistics);
+
+        assertThat(statistics.get("enabled")).isEqualTo(true);
+        assertThat(statistics).containsKeys("session", "entities", "queries", "slowQuery");
+        List<?> queries = (List<?>) statistics.get("queries");
+        assertThat(queries).isNotEmpty().hasSizeLessThanOrEqualTo(5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void queriesSortedByTotalTime() {
+        memberRepository.save(new Member("statistics", 10));
+        for (int i = 0; i < 20; i++) {
+            memberRepository.findUser("statistics", 10);
+        }
+
+        List<HibernateStatisticsEndpoint.QueryStats> queries =
+                (List<HibernateStatisticsEndpoint.QueryStats>) hibernateStatisticsEndpoint.statistics(100).get("queries");
+
+        // 전체 시간은 평균(소수점 버림) * 횟수보다 작을 수 없음
+        assertThat(queries).isSortedAccordingTo(Comparator.comparingLong(HibernateStatisticsEndpoint.QueryStats::getTotalMs).reversed());
+        assertThat(queries).allSatisfy(query -> assertThat(query.getTotalMs()).isGreaterThanOrEqualTo(query.getAvgMs() * query.getExecutions()));
+    }
+
+    @Test
+    public void rejectNegativeTop() {
+        assertThatThrownBy(() -> hibernateStatisticsEndpoint.statistics(-1))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+    }
+
+    @Test
+    public void rejectInvalidSlowQuerySettings() {
+        Duration threshold = slowQueryLog.getThreshold();
+        double sampleRate = slowQueryLog.getSampleRate();
+
+        assertThatThrownBy(() -> hibernateStatisticsEndpoint.configure(null, null, -1L, null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> hibernateStatisticsEndpoint.configure(null, null, 0L, 1.5))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+
+        // 잘못된 요청은 어떤 값도 바꾸지 않음
+        assertThat(slowQueryLog.getThreshold()).isEqualTo(threshold);
+        assertThat(slowQueryLog.getSampleRate()).isEqualTo(sampleRate);
+
+        // 설정 파일의 값도 같은 범위로 검증
+        assertThatThrownBy(() -> new SlowQueryLog(new SimpleMeterRegistry(), null, true, Duration.ofMillis(200), 2.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void toggleAtRuntime() {
+        try {
+            Map<String, Object> result = hibernateStatisticsEndpoint.configure(false, null, null, null);
+            assertThat(result.get("enabled")).isEqualTo(false);
+        } finally {
+            hibernateStatisticsEndpoint.configure(true, null, null, null);
+        }
+    }
+
+    @Test
+    public void slowQueryLog() {
+        Duration threshold = slowQueryLog.getThreshold();
+        double before = meterRegistry.counter("sql.slow").count();
+        try {
+            // threshold 0 -> 모든 SQL이 느린 쿼리로 기록됨
+            hibernateStatisticsEndpoint.configure(null, true, 0L, 1.0);
+            memberRepository.count();
+            assertThat(meterRegistry.counter("sql.slow").count()).isGreaterThan(before);
+        } finally {
+            slowQueryLog.setThreshold(threshold);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamJpaRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RepositoryMetricsAspectTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired RepositoryMetricsEndpoint repositoryMetricsEndpoint;
+
+    @Test
+    public void recordInvocations() {
+        teamRepository.save(new Team("metricsTeam"));
+        teamRepository.findAll();
+        teamJpaRepository.count();
+
+        // Spring Data 리포지토리 : 인터페이스 이름으로 기록
+        Timer findAll = meterRegistry.find(RepositoryMetricsAspect.TIMER)
+                .tags("repository", "TeamRepository", "method", "findAll", "outcome", "SUCCESS")
+                .timer();
+        DistributionSummary resultSize = meterRegistry.find(RepositoryMetricsAspect.RESULT_SIZE)
+                .tags("repository", "TeamRepository", "method", "findAll")
+                .summary();
+        assertThat(findAll.count()).isGreaterThanOrEqualTo(1);
+        assertThat(resultSize.max()).isGreaterThanOrEqualTo(1);
+
+        // 순수 JPA 리포지토리 : 클래스 이름으로 기록
+        assertThat(repositoryMetricsEndpoint.repositories()).containsKey("TeamJpaRepository.count");
+    }
+}
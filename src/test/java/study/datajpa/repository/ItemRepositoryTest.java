@@ -5,6 +5,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -29,4 +33,29 @@ class ItemRepositoryTest {
         // 결국 persist가 아닌 merge가 호출되는데 merge는 DB에 값이 있다는 것을 전제로 실행됨
         // DB에서 없다는 것을 판단하고 다시 새로 넣음 -> 비효율적
     }
+
+    @Test
+    public void upsertAll() {
+        itemRepository.upsertAll(Arrays.asList(new Item("U1"), new Item("U2")));
+
+        // U2는 이미 있으므로 insert 되지 않고, U3만 insert
+        List<Item> result = itemRepository.upsertAll(Arrays.asList(new Item("U2"), new Item("U3")));
+
+        assertThat(result).extracting("id").containsExactly("U2", "U3");
+        assertThat(result).allMatch(item -> item.getCreatedDate() != null);
+        assertThat(itemRepository.findAllById(Arrays.asList("U1", "U2", "U3"))).hasSize(3);
+    }
+
+    @Test
+    public void upsertAllUpdatesExisting() {
+        itemRepository.upsertAll(Arrays.asList(new Item("V1", "before")));
+        Item saved = itemRepository.findById("V1").get();
+
+        itemRepository.upsertAll(Arrays.asList(new Item("V1", "after")));
+
+        // 이미 있는 행은 들어온 값으로 update, 등록일은 그대로
+        Item found = itemRepository.findById("V1").get();
+        assertThat(found.getName()).isEqualTo("after");
+        assertThat(found.getCreatedDate()).isEqualTo(saved.getCreatedDate());
+    }
 }
\ No newline at end of file
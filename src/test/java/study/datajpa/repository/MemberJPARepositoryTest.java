@@ -53,6 +53,18 @@ class MemberJPARepositoryTest {
         assertThat(totalCount).isEqualTo(5);
     }
 
+    @Test
+    public void estimatedTotalCount() {
+        memberJPARepository.save(new Member("estimated1", 77));
+        long first = memberJPARepository.totalCount(77);
+
+        memberJPARepository.save(new Member("estimated2", 77));
+
+        // ESTIMATED : ttl 동안은 캐시된 count를 그대로 사용
+        assertThat(memberJPARepository.totalCount(77)).isEqualTo(first);
+        assertThat(memberJPARepository.totalCount(78)).isEqualTo(0);
+    }
+
     @Test
     public void bulkUpdate() {
         // given
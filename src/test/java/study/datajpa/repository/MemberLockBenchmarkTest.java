@@ -0,0 +1,86 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.support.OptimisticRetryTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// ./gradlew benchmark 로 실행
+// 같은 회원을 수정하는 경우(경합)와 서로 다른 회원을 수정하는 경우의 처리량, p99 응답 시간 비교
+@Tag("benchmark")
+@SpringBootTest
+class MemberLockBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired OptimisticRetryTemplate optimisticRetryTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void pessimisticVsOptimistic() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < THREADS; i++) {
+            memberRepository.save(new Member("lock" + i, 0));
+        }
+        memberRepository.save(new Member("lockShared", 0));
+
+        // 현재 방식 : select ... for update 후 수정
+        Consumer<String> pessimistic = username -> transactionTemplate.executeWithoutResult(status -> {
+            Member member = memberRepository.findLockByUsername(username).get(0);
+            member.setAge(member.getAge() + 1);
+        });
+        // @Version + 재시도
+        Consumer<String> optimistic = username -> optimisticRetryTemplate.execute(() -> {
+            Member member = memberRepository.findByUsername(username);
+            member.setAge(member.getAge() + 1);
+            return null;
+        });
+
+        run("pessimistic / same member", pessimistic, true);
+        run("pessimistic / disjoint members", pessimistic, false);
+        run("optimistic / same member", optimistic, true);
+        run("optimistic / disjoint members", optimistic, false);
+    }
+
+    private void run(String name, Consumer<String> operation, boolean shared) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            String username = shared ? "lockShared" : "lock" + i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                    long begin = System.nanoTime();
+                    operation.accept(username);
+                    latencies.add(System.nanoTime() - begin);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        Collections.sort(latencies);
+        long p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+        System.out.printf("%-32s throughput=%.1f ops/s p99=%.2fms%n", name,
+                latencies.size() * 1_000_000_000.0 / elapsed, p99 / 1_000_000.0);
+    }
+}
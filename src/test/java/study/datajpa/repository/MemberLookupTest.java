@@ -0,0 +1,49 @@
+package study.datajpa.repository;
+
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class MemberLookupTest {
+
+    @Autowired MemberLookup memberLookup;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void singleFlightDoesNotUseRequestEntityManager() {
+        Team team = teamRepository.save(new Team("lookupTeam"));
+        Member saved = memberRepository.save(new Member("lookupMember", 10, team));
+
+        // OSIV : 트랜잭션 없이 요청 스레드에 EntityManager가 바인딩되어 있음
+        EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+        EntityManagerHolder holder = new EntityManagerHolder(requestEntityManager);
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, holder);
+        try {
+            Member member = memberLookup.findById(saved.getId()).get();
+
+            // 요청의 영속성 컨텍스트에 올라가지 않고, 지연 로딩도 요청의 세션을 사용하지 않음
+            assertThat(requestEntityManager.contains(member)).isFalse();
+            assertThatThrownBy(() -> member.getTeam().getName()).isInstanceOf(LazyInitializationException.class);
+            assertThat(TransactionSynchronizationManager.getResource(entityManagerFactory)).isSameAs(holder);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestEntityManager.close();
+            memberRepository.deleteById(saved.getId());
+            teamRepository.deleteById(team.getId());
+        }
+    }
+}
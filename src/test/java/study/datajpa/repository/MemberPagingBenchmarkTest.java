@@ -0,0 +1,120 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ./gradlew benchmark 로 실행 (기본 test 태스크에서는 제외)
+// 트랜잭션 롤백으로 대량 데이터가 남지 않게 함
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class MemberPagingBenchmarkTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int[] DEPTHS = {10, 1_000, 100_000}; // 건너뛰는 row 수
+    private static final int ITERATIONS = 20;
+
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void offsetVsKeyset() {
+        int total = DEPTHS[DEPTHS.length - 1] + PAGE_SIZE;
+        for (int i = 0; i < total; i++) {
+            em.persist(new Member(String.format("bench%06d", i), i % 100));
+            if (i % 1000 == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        for (int depth : DEPTHS) {
+            // keyset 시작 위치 : depth - 1 번째 row
+            Member prev = em.createQuery("select m from Member m order by m.username asc, m.id asc", Member.class)
+                    .setFirstResult(depth - 1)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            MemberCursor cursor = new MemberCursor(prev.getUsername(), prev.getId());
+            PageRequest pageRequest = PageRequest.of(depth / PAGE_SIZE, PAGE_SIZE, Sort.by("username", "id"));
+
+            long offsetNanos = measure(() -> {
+                Page<MemberDto> page = memberRepository.findAll(pageRequest).map(MemberDto::new);
+                return page.getContent();
+            });
+            long keysetNanos = measure(() -> {
+                Slice<MemberDto> slice = memberRepository.findByCursor(cursor, PAGE_SIZE).map(MemberDto::new);
+                return slice.getContent();
+            });
+
+            System.out.printf("depth=%d offset(page+count)=%.3fms keyset=%.3fms%n",
+                    depth, offsetNanos / 1_000_000.0, keysetNanos / 1_000_000.0);
+        }
+    }
+
+    @Test
+    public void entityVsProjectionAllocation() {
+        for (int i = 0; i < 1_000; i++) {
+            em.persist(new Member(String.format("alloc%04d", i), i % 100));
+        }
+        em.flush();
+        em.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 500, Sort.by("username"));
+        // MemberController.list : 엔티티 조회 후 dto로 변환
+        long entityBytes = allocatedPerCall(() -> memberRepository.findAll(pageRequest).map(MemberDto::new).getContent());
+        // MemberController.listDto : dto로 바로 조회
+        long projectionBytes = allocatedPerCall(() -> memberRepository.findMemberDtoAll(pageRequest).getContent());
+
+        System.out.printf("heap allocated per request (page size %d) entity=%dKB projection=%dKB%n",
+                pageRequest.getPageSize(), entityBytes / 1024, projectionBytes / 1024);
+    }
+
+    // 현재 스레드가 할당한 바이트 (평균)
+    private long allocatedPerCall(Supplier<?> call) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 3; i++) {
+            call.get();
+            em.clear();
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.get();
+            em.clear(); // 다음 요청은 새 영속성 컨텍스트에서 시작하는 것과 동일하게
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    // 평균 실행 시간 (warm up 후 측정)
+    private long measure(Supplier<?> call) {
+        for (int i = 0; i < 3; i++) {
+            assertThat(call.get()).isNotNull();
+            em.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.get();
+            em.clear();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -1,28 +1,36 @@
 package study.datajpa.repository;
 
+import org.hibernate.Session;
 import org.hibernate.boot.jaxb.hbm.spi.JaxbHbmMultiTenancyType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.sql.SqlStatementCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -108,6 +116,43 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findMemberDtoAll() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dto1", 10, team));
+        memberRepository.save(new Member("dto2", 20));
+        em.flush();
+        em.clear();
+
+        Page<MemberDto> page = memberRepository.findMemberDtoAll(PageRequest.of(0, 2000, Sort.by("username")));
+
+        assertThat(page.getContent())
+                .filteredOn(dto -> dto.getUsername().startsWith("dto"))
+                .extracting("username", "teamName")
+                .containsExactly(tuple("dto1", "teamA"), tuple("dto2", null));
+        // dto로 조회하면 엔티티가 영속성 컨텍스트에 올라가지 않음
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void findMemberDtoAllSortByTeamName() {
+        Team teamB = teamRepository.save(new Team("dtoSortB"));
+        Team teamA = teamRepository.save(new Team("dtoSortA"));
+        memberRepository.save(new Member("dtoSort1", 10, teamB));
+        memberRepository.save(new Member("dtoSort2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        // sort=teamName -> order by t.name
+        Page<MemberDto> page = memberRepository.findMemberDtoAll(PageRequest.of(0, 2000, Sort.by(Sort.Direction.DESC, "teamName")));
+
+        assertThat(page.getContent())
+                .filteredOn(dto -> dto.getUsername() != null && dto.getUsername().startsWith("dtoSort"))
+                .extracting("teamName")
+                .containsExactly("dtoSortB", "dtoSortA");
+    }
+
     @Test
     public void findByNames() {
         Member m1 = new Member("AAA", 10);
@@ -192,6 +237,100 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue(); // 다음 페이지가 있는지 확인
     }
 
+    @Test
+    public void cursorPaging() {
+        // given
+        memberRepository.save(new Member("cursor1", 10));
+        memberRepository.save(new Member("cursor2", 10));
+        memberRepository.save(new Member("cursor2", 20)); // 같은 username은 id로 순서 결정
+        memberRepository.save(new Member("cursor3", 10));
+        memberRepository.save(new Member("cursor4", 10));
+
+        Slice<Member> first = memberRepository.findByCursor(new MemberCursor("cursor0", 0L), 3);
+        Member last = first.getContent().get(2);
+
+        // when : 토큰으로 변환했다가 다시 복원해서 다음 페이지 조회
+        String token = new MemberCursor(last.getUsername(), last.getId()).encode();
+        Slice<Member> second = memberRepository.findByCursor(MemberCursor.decode(token), 3);
+
+        // then
+        assertThat(first.getContent()).extracting("username").containsExactly("cursor1", "cursor2", "cursor2");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").startsWith("cursor3", "cursor4");
+    }
+
+    @Test
+    @Rollback // username이 null인 회원을 다른 테스트에 남기지 않음
+    public void cursorPagingWithNullUsername() {
+        // given : username이 null인 회원은 가장 앞에 정렬됨
+        Member first = memberRepository.save(new Member(null, 10));
+        Member second = memberRepository.save(new Member(null, 20));
+        em.flush();
+        em.clear();
+
+        // when : null 구간 안에서 다음 페이지, null 구간의 마지막에서 다음 페이지
+        String token = new MemberCursor(null, first.getId() - 1).encode();
+        Slice<Member> nulls = memberRepository.findByCursor(MemberCursor.decode(token), 2);
+        Slice<Member> afterNulls = memberRepository.findByCursor(new MemberCursor(null, second.getId()), 2);
+
+        // then
+        assertThat(nulls.getContent()).extracting("id").containsExactly(first.getId(), second.getId());
+        assertThat(nulls.hasNext()).isTrue(); // 뒤에 username이 있는 회원이 이어짐
+        assertThat(afterNulls.getContent()).isNotEmpty().allSatisfy(m -> assertThat(m.getUsername()).isNotNull());
+    }
+
+    @Test
+    public void saveAllBatched() {
+        // when
+        BatchSaveResult result = memberRepository.saveAllBatched(IntStream.range(0, 250)
+                .mapToObj(i -> new Member("batch" + i, i)), 100);
+
+        // then
+        System.out.println("result = " + result);
+        assertThat(result.getRows()).isEqualTo(250);
+        assertThat(memberRepository.findByUsername("batch249").getAge()).isEqualTo(249);
+    }
+
+    @Test
+    public void saveAllBatchedRejectsNonPositiveBatchSize() {
+        // 리포지토리 프록시가 IllegalArgumentException을 InvalidDataAccessApiUsageException으로 변환
+        InvalidDataAccessApiUsageException e = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> memberRepository.saveAllBatched(Stream.of(new Member("batchZero", 10)), 0));
+        assertThat(e).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(memberRepository.findByUsername("batchZero")).isNull(); // 저장하기 전에 실패
+    }
+
+    @Test
+    public void streamMemberDto() {
+        // given
+        Team team = new Team("streamTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 20, team));
+        memberRepository.save(new Member("stream3", 30));
+        em.flush();
+        em.clear();
+        Member managed = memberRepository.findByUsername("stream3");
+        managed.setAge(31); // 아직 flush 하지 않은 변경
+
+        // when : fetchSize를 작게 주어 여러 번 나누어 가져오는 경우도 확인
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto(2)) {
+            result = stream
+                    .filter(dto -> dto.getUsername() != null && dto.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(result).extracting("username").containsExactly("stream1", "stream2", "stream3");
+        assertThat(result).extracting("teamName").containsExactly("streamTeam", "streamTeam", null);
+        // 호출한 쪽 영속성 컨텍스트는 그대로 유지됨
+        assertThat(em.contains(managed)).isTrue();
+        em.flush();
+        em.clear();
+        assertThat(memberRepository.findByUsername("stream3").getAge()).isEqualTo(31);
+    }
+
     @Test
     public void bulkUpdate() {
         // given : 여기까지는 영속성 컨텍스트에 들어간 것이지 DB에 반영된 것은 아님
@@ -236,21 +375,27 @@ class MemberRepositoryTest {
 
         // 연관관계가 있는 것을 조인으로 한 번에 가져오고 이 값들을 모두 select 절에 넣어줌 (객체 그래프)
         // 그냥 join을 하면 member 필드만 가져오는데 fetch join을 하면 team 필드까지 select 절에 넣어준다는 점이 특징
-        List<Member> members = memberRepository.findMemberFetchJoin();
-        // List<Member> members = memberRepository.findAll();
-        // (상위의 findAll은 N + 1에 걸리지만 EntityGraph가 적용된 메서드는 문제없이 페치조인처럼 호출)
-
-//        N + 1 문제 발생
-//        for (Member member : members) {
-//            System.out.println("member = " + member.getUsername());
-//            System.out.println("team = " + member.getTeam().getClass()); // proxy
-//            System.out.println("member.team = " + member.getTeam().getName()); // .getName() 하는 순간 실제 엔티티를 가져옴
-//        }
-
-        for (Member member : members) {
-            System.out.println("member = " + member.getUsername());
-            System.out.println("team = " + member.getTeam().getClass()); // 실제 엔티티가 나옴
-            System.out.println("member.team = " + member.getTeam().getName()); // 쿼리가 나가지 않음
+        // 조회 중 예외가 나도 scope가 스레드에 남아 다음 테스트의 SQL까지 세지 않도록 try-with-resources
+        try (SqlStatementCounter.Scope sqlScope = SqlStatementCounter.start("findMemberLazy")) {
+            List<Member> members = memberRepository.findMemberFetchJoin();
+            // List<Member> members = memberRepository.findAll();
+            // (상위의 findAll은 N + 1에 걸리지만 EntityGraph가 적용된 메서드는 문제없이 페치조인처럼 호출)
+
+//            N + 1 문제 발생
+//            for (Member member : members) {
+//                System.out.println("member = " + member.getUsername());
+//                System.out.println("team = " + member.getTeam().getClass()); // proxy
+//                System.out.println("member.team = " + member.getTeam().getName()); // .getName() 하는 순간 실제 엔티티를 가져옴
+//            }
+
+            for (Member member : members) {
+                System.out.println("member = " + member.getUsername());
+                System.out.println("team = " + member.getTeam().getClass()); // 실제 엔티티가 나옴
+                System.out.println("member.team = " + member.getTeam().getName()); // 쿼리가 나가지 않음
+            }
+
+            // team까지 쿼리 한 번으로 조회 (N + 1 X)
+            assertThat(sqlScope.getCount()).isEqualTo(1);
         }
     }
 
@@ -0,0 +1,72 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+// @Transactional을 걸지 않음 : 리포지토리 호출마다 새 영속성 컨텍스트를 사용해야 2차 캐시를 거침
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void teamCache() {
+        Team team = teamRepository.save(new Team("cacheTeam")); // insert 시 2차 캐시에 저장
+
+        long hit = statistics.getSecondLevelCacheHitCount();
+        Team findTeam = teamRepository.findById(team.getId()).get();
+
+        assertThat(findTeam.getName()).isEqualTo("cacheTeam");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hit);
+    }
+
+    @Test
+    public void teamCacheKeptOnMemberInsert() {
+        Team cached = teamRepository.save(new Team("cacheTeamA"));
+        Team other = teamRepository.save(new Team("cacheTeamB"));
+        teamRepository.findById(cached.getId());
+
+        // 다른 팀에 회원이 추가되어도 그 팀만 캐시에서 제거됨
+        memberRepository.save(new Member("cacheTeamMember", 10, other));
+
+        long hit = statistics.getSecondLevelCacheHitCount();
+        teamRepository.findById(cached.getId());
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hit);
+
+        // 회원이 추가된 팀은 DB에서 다시 읽어서 최신 집계 값
+        assertThat(teamRepository.findById(other.getId()).get().getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void queryCacheEvictedByBulkUpdate() {
+        memberRepository.save(new Member("cacheMember", 1000));
+        memberRepository.findByUsername("cacheMember"); // miss -> 쿼리 캐시에 저장
+
+        long queryHit = statistics.getQueryCacheHitCount();
+        memberRepository.findByUsername("cacheMember");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryHit + 1);
+
+        // 벌크 연산 후에는 캐시된 값(1000)이 아니라 DB 값이 조회되어야 함
+        memberRepository.bulkAgePlus(1000);
+        assertThat(memberRepository.findByUsername("cacheMember").getAge()).isEqualTo(1001);
+    }
+}
@@ -0,0 +1,215 @@
+package study.datajpa.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.support.TeamAggregateReconciler;
+import study.datajpa.sql.SqlStatementCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamAggregateReconciler teamAggregateReconciler;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void findTeamsWithMembers() {
+        // 숫자로 시작하는 이름이 정렬 시 가장 앞에 오도록
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team(i + "-team"));
+            memberRepository.save(new Member("teamMember" + i + "a", 10, team));
+            memberRepository.save(new Member("teamMember" + i + "b", 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        SqlStatementCounter.Scope scope = SqlStatementCounter.start("findTeamsWithMembers");
+        Page<Team> page = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2, Sort.by("name")));
+        for (Team team : page.getContent()) {
+            assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+            assertThat(team.getMembers()).hasSize(2);
+        }
+        scope.close();
+
+        assertThat(page.getContent()).extracting("name").containsExactly("0-team", "1-team");
+        // 팀 조회 + members 조회 + count
+        assertThat(scope.getCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void batchFetchMemberTeam() {
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team("batchTeam" + i));
+            memberRepository.save(new Member("batchFetch" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        // 회원 조회 1번 + team 프록시 초기화는 in 쿼리 1번 (N + 1 X)
+        long count = SqlStatementCounter.count(() -> {
+            List<Member> members = memberRepository.findByNames(Arrays.asList("batchFetch0", "batchFetch1", "batchFetch2"));
+            members.forEach(member -> member.getTeam().getName());
+        });
+        assertThat(count).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void aggregates() {
+        Team teamA = teamRepository.save(new Team("aggregateA"));
+        Team teamB = teamRepository.save(new Team("aggregateB"));
+        Member member1 = memberRepository.save(new Member("aggregate1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("aggregate2", 20, teamA));
+        Member member3 = memberRepository.save(new Member("aggregate3", 30, teamA));
+
+        member2.changeTeam(teamB); // A -> B
+        assertThat(teamB.getMembers()).containsExactly(member2); // 바이트코드 향상 여부와 상관없이 한 번만 추가
+        member3.setAge(35);
+        memberRepository.delete(member1);
+        em.flush();
+        em.clear();
+
+        Team findA = teamRepository.findById(teamA.getId()).get();
+        Team findB = teamRepository.findById(teamB.getId()).get();
+        assertThat(findA.getMemberCount()).isEqualTo(1);
+        assertThat(findA.getAgeSum()).isEqualTo(35);
+        assertThat(findB.getMemberCount()).isEqualTo(1);
+        assertThat(findB.getAverageAge()).isEqualTo(20.0);
+    }
+
+    @Test
+    public void aggregatesWithBulkUpdate() {
+        Team team = teamRepository.save(new Team("aggregateBulk"));
+        memberRepository.save(new Member("aggregateBulk1", 3000, team));
+        memberRepository.save(new Member("aggregateBulk2", 3001, team));
+        memberRepository.save(new Member("aggregateBulk3", 10, team));
+
+        memberRepository.bulkAgePlus(3000); // 3000 이상인 2명만 +1
+
+        Team findTeam = teamRepository.findById(team.getId()).get();
+        assertThat(findTeam.getAgeSum()).isEqualTo(3000 + 3001 + 10 + 2);
+
+        // 팀 목록은 members를 조인하지 않고 집계 값 사용
+        TeamDto dto = teamRepository.findTeamDtoAll(PageRequest.of(0, 2000)).getContent().stream()
+                .filter(t -> t.getId().equals(team.getId()))
+                .findFirst().get();
+        assertThat(dto.getMemberCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void reconcile() {
+        Team team = teamRepository.save(new Team("aggregateDrift"));
+        memberRepository.save(new Member("aggregateDrift1", 10, team));
+        memberRepository.save(new Member("aggregateDrift2", 20, team));
+        em.flush();
+
+        // 엔티티를 거치지 않은 변경으로 집계 값이 어긋난 상황
+        em.createQuery("update Team t set t.memberCount = 0, t.ageSum = 0 where t.id = :id")
+                .setParameter("id", team.getId())
+                .executeUpdate();
+        em.clear();
+
+        assertThat(teamAggregateReconciler.reconcile()).isGreaterThanOrEqualTo(1);
+        em.flush();
+        em.clear();
+
+        Team findTeam = teamRepository.findById(team.getId()).get();
+        assertThat(findTeam.getMemberCount()).isEqualTo(2);
+        assertThat(findTeam.getAgeSum()).isEqualTo(30);
+    }
+
+    @Test
+    public void setTeamDoesNotLoadMembers() {
+        Team team = teamRepository.save(new Team("lazyMembers"));
+        Team detached = teamRepository.save(new Team("detachedMembers"));
+        em.flush();
+        em.clear();
+
+        // 영속 상태 팀 : members 컬렉션을 로딩하지 않음
+        Team findTeam = teamRepository.findById(team.getId()).get();
+        Member member = memberRepository.save(new Member("lazyMember", 10, findTeam));
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+
+        // 준영속 상태 팀 : LazyInitializationException 없이 연관관계 설정
+        Team detachedTeam = teamRepository.findById(detached.getId()).get();
+        em.detach(detachedTeam);
+        member.setTeam(detachedTeam);
+        assertThat(member.getTeam()).isSameAs(detachedTeam);
+    }
+
+    @Test
+    public void aggregatesWithDetachedTeam() {
+        Team team = teamRepository.save(new Team("aggregateDetached"));
+        em.flush();
+        em.clear(); // saveAllBatched의 청크 사이처럼 팀이 준영속 상태
+
+        memberRepository.save(new Member("aggregateDetached1", 10, team));
+        memberRepository.save(new Member("aggregateDetached2", 20, team));
+        em.flush();
+        em.clear();
+
+        // 팀이 프록시여도 나이 변경 시 팀을 조회하지 않음
+        Member member = memberRepository.findByUsername("aggregateDetached1");
+        member.setAge(15);
+        em.flush();
+        assertThat(Hibernate.isInitialized(member.getTeam())).isFalse();
+        em.clear();
+
+        Team findTeam = teamRepository.findById(team.getId()).get();
+        assertThat(findTeam.getMemberCount()).isEqualTo(2);
+        assertThat(findTeam.getAgeSum()).isEqualTo(35);
+        assertThat(findTeam.getVersion()).isEqualTo(team.getVersion()); // 팀 버전은 그대로
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 두 트랜잭션이 각자 커밋
+    public void aggregatesWithConcurrentInserts() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = tx.execute(status -> teamRepository.save(new Team("aggregateConcurrent")));
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        // 두 트랜잭션이 같은 팀에 회원을 추가하고 동시에 커밋 : 낙관적 락 예외 없이 둘 다 반영
+        List<CompletableFuture<Void>> futures = Arrays.asList(
+                CompletableFuture.runAsync(() -> insertAndCommit(tx, team, "aggregateConcurrent1", 10, barrier)),
+                CompletableFuture.runAsync(() -> insertAndCommit(tx, team, "aggregateConcurrent2", 20, barrier)));
+        futures.forEach(CompletableFuture::join);
+
+        Team findTeam = tx.execute(status -> teamRepository.findById(team.getId()).get());
+        assertThat(findTeam.getMemberCount()).isEqualTo(2);
+        assertThat(findTeam.getAgeSum()).isEqualTo(30);
+    }
+
+    private void insertAndCommit(TransactionTemplate tx, Team team, String username, int age, CyclicBarrier barrier) {
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username, age, team));
+            try {
+                barrier.await(); // 둘 다 저장한 뒤 커밋 (flush는 커밋 시점)
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
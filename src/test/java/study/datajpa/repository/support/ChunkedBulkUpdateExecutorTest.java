@@ -0,0 +1,105 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+// 청크마다 새 트랜잭션으로 커밋하므로 @Transactional을 걸지 않음
+class ChunkedBulkUpdateExecutorTest {
+
+    @Autowired ChunkedBulkUpdateExecutor chunkedBulkUpdateExecutor;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void bulkAgePlusChunked() {
+        memberRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> new Member("chunk" + i, 5000 + i))
+                .collect(Collectors.toList()));
+
+        BulkUpdateProgress progress = memberRepository.bulkAgePlusChunked(5010);
+
+        assertThat(progress.isCompleted()).isTrue();
+        assertThat(memberRepository.findByUsername("chunk9").getAge()).isEqualTo(5009);
+        assertThat(memberRepository.findByUsername("chunk10").getAge()).isEqualTo(5011);
+        assertThat(memberRepository.findByUsername("chunk29").getAge()).isEqualTo(5030);
+    }
+
+    @Test
+    public void resumeAfterFailure() {
+        List<Member> members = memberRepository.saveAll(IntStream.range(0, 20)
+                .mapToObj(i -> new Member("resume" + i, 7000))
+                .collect(Collectors.toList()));
+        ChunkedUpdate update = new ChunkedUpdate("resume-test", "Member",
+                "update Member m set m.age = m.age + 1 where m.age >= :age and m.id between :fromId and :toId",
+                Collections.singletonMap("age", 7000));
+
+        // 첫 번째 청크를 커밋한 직후 장애가 난 상황
+        assertThatThrownBy(() -> chunkedBulkUpdateExecutor.execute(update, 5, progress -> {
+            throw new IllegalStateException("crash");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // 다시 실행하면 이미 처리한 청크는 건너뜀 -> 모든 회원이 정확히 한 번씩만 증가
+        BulkUpdateProgress progress = chunkedBulkUpdateExecutor.execute(update, 5, p -> { });
+
+        assertThat(progress.isCompleted()).isTrue();
+        for (Member member : members) {
+            assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(7001);
+        }
+    }
+
+    @Test
+    public void concurrentRuns() {
+        List<Member> members = memberRepository.saveAll(IntStream.range(0, 40)
+                .mapToObj(i -> new Member("concurrentChunk" + i, 8000))
+                .collect(Collectors.toList()));
+        ChunkedUpdate update = new ChunkedUpdate("concurrent-test", "Member",
+                "update Member m set m.age = m.age + 1 where m.age >= :age and m.id between :fromId and :toId",
+                Collections.singletonMap("age", 8000));
+
+        // 같은 작업을 두 번 동시에 실행 (재시도가 앞선 실행과 겹친 상황)
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<BulkUpdateProgress>> runs = IntStream.range(0, 2)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return chunkedBulkUpdateExecutor.execute(update, 5, p -> { });
+                }))
+                .collect(Collectors.toList());
+        start.countDown();
+        runs.forEach(CompletableFuture::join);
+
+        // 체크포인트 락으로 같은 id 범위가 두 번 적용되지 않음
+        for (Member member : members) {
+            assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(8001);
+        }
+    }
+
+    @Test
+    public void rejectNonPositiveChunkSize() {
+        ChunkedUpdate update = new ChunkedUpdate("invalid-chunk", "Member",
+                "update Member m set m.age = m.age where m.id between :fromId and :toId", Collections.emptyMap());
+
+        assertThatThrownBy(() -> chunkedBulkUpdateExecutor.execute(update, 0, p -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InClauseExecutorTest {
+
+    @Test
+    public void splitIntoChunks() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        InClauseExecutor inClauseExecutor = new InClauseExecutor(executor, 3, true);
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+        List<Integer> values = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        values.add(0); // 중복 값은 제거
+        List<String> result = inClauseExecutor.execute(values, chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunk.stream().map(i -> "member" + i).collect(Collectors.toList());
+        });
+
+        assertThat(chunkSizes).containsExactlyInAnyOrder(3, 3, 3, 1);
+        assertThat(result).hasSize(10).contains("member0", "member9");
+        executor.shutdown();
+    }
+
+    @Test
+    public void callerRunsWhenExecutorIsBusy() {
+        // 작업을 받기만 하고 실행하지 않는 executor -> 호출한 스레드가 모든 청크를 직접 실행해야 함
+        InClauseExecutor inClauseExecutor = new InClauseExecutor(command -> { }, 2, true);
+
+        List<Integer> result = inClauseExecutor.execute(List.of(1, 2, 3, 4, 5), chunk -> chunk);
+
+        assertThat(result).containsExactly(1, 2, 3, 4, 5);
+        assertThat(inClauseExecutor.execute(List.<Integer>of(), chunk -> chunk)).isEmpty();
+    }
+
+    @Test
+    public void sequentialWhenEntityManagerBound() {
+        // OSIV : 트랜잭션은 없지만 요청 스레드에 EntityManager가 열려 있음
+        Object key = new Object();
+        TransactionSynchronizationManager.bindResource(key, new EntityManagerHolder(null));
+        try {
+            AtomicInteger submitted = new AtomicInteger();
+            InClauseExecutor inClauseExecutor = new InClauseExecutor(command -> submitted.incrementAndGet(), 2, true);
+
+            List<Integer> result = inClauseExecutor.execute(List.of(1, 2, 3, 4, 5), chunk -> chunk);
+
+            assertThat(result).containsExactly(1, 2, 3, 4, 5);
+            assertThat(submitted.get()).isZero(); // dbExecutor로 넘기지 않음
+        } finally {
+            TransactionSynchronizationManager.unbindResource(key);
+        }
+    }
+
+    @Test
+    public void rejectNonPositiveMaxSize() {
+        assertThatThrownBy(() -> new InClauseExecutor(Runnable::run, 0, true)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new InClauseExecutor(Runnable::run, -1, true)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
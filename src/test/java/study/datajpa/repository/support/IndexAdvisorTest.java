@@ -0,0 +1,47 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired IndexAdvisor indexAdvisor;
+
+    @Test
+    public void memberQueriesAreCovered() {
+        List<IndexAdvisor.Advice> advice = indexAdvisor.analyze();
+        advice.forEach(a -> System.out.println("advice = " + a));
+
+        // username, age, team_id 인덱스가 있으므로 Member 조건은 모두 인덱스를 탈 수 있음
+        assertThat(advice).noneMatch(a -> a.getTable().equals("member"));
+    }
+
+    @Test
+    public void derivedPredicates() {
+        List<Map<String, Set<String>>> groups = indexAdvisor.derivedPredicates("findByUsernameAndAgeGreaterThan", Member.class);
+
+        assertThat(groups).containsExactly(Map.of("member", Set.of("username", "age")));
+    }
+
+    @Test
+    public void jpqlPredicates() {
+        List<Map<String, Set<String>>> groups = indexAdvisor.jpqlPredicates(
+                "select m from Member m left join m.team t where t.name = :name or m.team.id = :teamId");
+
+        assertThat(groups).containsExactly(Map.of("team", Set.of("name")), Map.of("member", Set.of("team_id")));
+
+        // team.name에는 인덱스가 없음
+        List<IndexAdvisor.Advice> advice = indexAdvisor.check("test", groups);
+        assertThat(advice).hasSize(1);
+        assertThat(advice.get(0).getTable()).isEqualTo("team");
+    }
+}
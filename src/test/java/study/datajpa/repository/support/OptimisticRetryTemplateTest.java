@@ -0,0 +1,51 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OptimisticRetryTemplateTest {
+
+    @Autowired OptimisticRetryTemplate optimisticRetryTemplate;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void concurrentUpdate() throws Exception {
+        Member member = memberRepository.save(new Member("optimistic", 0));
+        Long id = member.getId();
+
+        // 4개 스레드가 같은 회원을 10번씩 수정 -> 충돌이 나도 재시도하므로 갱신이 유실되지 않음
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    optimisticRetryTemplate.execute(() -> {
+                        Member findMember = memberRepository.findById(id).get();
+                        findMember.setAge(findMember.getAge() + 1);
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Member findMember = memberRepository.findById(id).get();
+        assertThat(findMember.getAge()).isEqualTo(40);
+        assertThat(findMember.getVersion()).isEqualTo(40L);
+    }
+}
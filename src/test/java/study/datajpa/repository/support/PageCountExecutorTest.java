@@ -0,0 +1,294 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJPARepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberRepositoryImpl;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+// @Transactional을 걸지 않음 : 다른 커넥션에서 실행되는 쿼리가 데이터를 볼 수 있도록 커밋된 상태여야 함
+class PageCountExecutorTest {
+
+    @Autowired PageCountExecutor pageCountExecutor;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJPARepository memberJPARepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired @Qualifier("dbExecutor") Executor dbExecutor;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void pageAsync() {
+        memberRepository.saveAll(Arrays.asList(
+                new Member("parallel1", 555),
+                new Member("parallel2", 555),
+                new Member("parallel3", 555)));
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("username"));
+
+        // Spring Data 메서드
+        Page<MemberDto> page = pageCountExecutor.pageAsync(pageRequest,
+                () -> memberRepository.findSliceByAge(555, pageRequest).map(MemberDto::new).getContent(),
+                () -> memberRepository.countByAge(555)).join();
+
+        assertThat(page.getContent()).extracting("username").containsExactly("parallel1", "parallel2");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+
+        // 순수 JPA 리포지토리
+        Page<Member> jpaPage = memberJPARepository.findPage(555, PageRequest.of(1, 2)).join();
+        assertThat(jpaPage.getContent()).hasSize(1);
+        assertThat(jpaPage.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void findPageUsesEstimatedCount() {
+        memberRepository.saveAll(Arrays.asList(new Member("estimatedPage1", 556), new Member("estimatedPage2", 556)));
+        assertThat(memberJPARepository.findPage(556, PageRequest.of(0, 1)).join().getTotalElements()).isEqualTo(2);
+
+        memberRepository.save(new Member("estimatedPage3", 556));
+
+        // count는 프록시를 거쳐 호출되므로 totalCount의 @CountStrategy(ESTIMATED) 캐시가 적용됨
+        assertThat(memberJPARepository.findPage(556, PageRequest.of(0, 1)).join().getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        int permits = pageCountExecutor.availableAsyncPermits();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Page<String>> future = pageCountExecutor.pageAsync(PageRequest.of(0, 10),
+                () -> {
+                    started.countDown();
+                    await(release);
+                    return Arrays.asList("a");
+                },
+                () -> 1L);
+
+        started.await();
+        future.cancel(true); // 클라이언트 연결이 끊긴 상황
+        release.countDown();
+
+        assertThat(future.isCancelled()).isTrue();
+        // 두 쿼리의 트랜잭션이 끝나서 커넥션이 반환되면 permit도 반환됨
+        assertThat(eventually(() -> pageCountExecutor.availableAsyncPermits() == permits)).isTrue();
+    }
+
+    @Test
+    public void cancelRunningSiblingQuery() throws Exception {
+        int permits = pageCountExecutor.availableAsyncPermits();
+        CountDownLatch countStarted = new CountDownLatch(1);
+
+        // count : 끝나려면 한참 걸리는 쿼리, content : count가 실행 중일 때 실패
+        CompletableFuture<Page<String>> future = pageCountExecutor.pageAsync(PageRequest.of(0, 10),
+                () -> {
+                    await(countStarted);
+                    sleep(200);
+                    throw new IllegalStateException("content failed");
+                },
+                () -> {
+                    countStarted.countDown();
+                    return ((Number) em.createNativeQuery("select sum(x) from system_range(1, 10000000000)")
+                            .getSingleResult()).longValue();
+                });
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(IllegalStateException.class);
+
+        // 실행 중이던 count 쿼리가 JDBC 취소로 바로 끝나고 커넥션이 반환됨 (끝까지 실행되면 수 분 이상 걸림)
+        assertThat(eventually(() -> pageCountExecutor.availableAsyncPermits() == permits)).isTrue();
+    }
+
+    @Test
+    public void fallbackWhenAsyncPermitsExhausted() {
+        memberRepository.saveAll(Arrays.asList(new Member("fallback1", 557), new Member("fallback2", 557)));
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 동시에 실행할 수 있는 ASYNC 페이지를 모두 사용 중인 상황
+        List<CompletableFuture<Page<String>>> running = new ArrayList<>();
+        int permits = pageCountExecutor.availableAsyncPermits();
+        for (int i = 0; i < permits; i++) {
+            running.add(pageCountExecutor.pageAsync(PageRequest.of(0, 10),
+                    () -> {
+                        await(release);
+                        return Arrays.asList("a");
+                    },
+                    () -> 1L));
+        }
+        assertThat(pageCountExecutor.availableAsyncPermits()).isZero();
+
+        // 넘치는 요청은 커넥션 하나(같은 스레드)에서 content, count를 순서대로 실행
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Page<Member> page = pageCountExecutor.pageAsync(PageRequest.of(0, 10),
+                () -> {
+                    threads.add(Thread.currentThread().getName());
+                    return memberRepository.findByNames(Arrays.asList("fallback1", "fallback2"));
+                },
+                () -> {
+                    threads.add(Thread.currentThread().getName());
+                    return memberRepository.countByAge(557);
+                }).join();
+        release.countDown();
+        running.forEach(CompletableFuture::join);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(threads).hasSize(1);
+        assertThat(eventually(() -> pageCountExecutor.availableAsyncPermits() == permits)).isTrue();
+    }
+
+    @Test
+    public void findByAgeRunsInReadOnlyTransaction() {
+        memberRepository.saveAll(Arrays.asList(new Member("readOnlyPage1", 558), new Member("readOnlyPage2", 558)));
+
+        // OSIV처럼 EntityManager만 열려 있는 상태에서 호출 -> 조회한 엔티티가 이 EntityManager에 남음
+        EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestEntityManager));
+        try {
+            Page<Member> page = memberRepository.findByAge(558, PageRequest.of(0, 10));
+
+            // 읽기 전용 트랜잭션에서 로딩한 엔티티는 읽기 전용 (스냅샷 X, 라우팅 사용 시 replica에서 조회)
+            Session session = requestEntityManager.unwrap(Session.class);
+            assertThat(page.getTotalElements()).isEqualTo(2);
+            assertThat(page.getContent()).allSatisfy(member -> assertThat(session.isReadOnly(member)).isTrue());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestEntityManager.close();
+        }
+    }
+
+    @Test
+    public void syncAsyncCountTimesOut() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        PageCountExecutor executor = new PageCountExecutor(threads, transactionManager, Duration.ofMillis(300), 10, 1, 10);
+        ReflectionTestUtils.setField(executor, "em", em);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // findByAge와 같이 @CountStrategy(ASYNC) 메서드 안에서 호출한 상황, count가 끝나지 않음
+        PageCountExecutor.Binding previous = PageCountExecutor.bind(asyncBinding());
+        try {
+            assertThatThrownBy(() -> executor.page(PageRequest.of(0, 10), () -> Arrays.asList("a"), () -> {
+                await(release);
+                return 1L;
+            })).isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            PageCountExecutor.restore(previous);
+            release.countDown();
+        }
+
+        assertThat(eventually(() -> executor.availableAsyncPermits() == 1)).isTrue();
+        threads.shutdown();
+    }
+
+    @Test
+    public void syncAsyncCountOnDbExecutorThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        // dbExecutor 작업 안에서 호출하면 count를 dbExecutor에 넣지 않고 같은 스레드에서 실행
+        PageCountExecutor.Binding binding = asyncBinding();
+        CompletableFuture<Page<String>> future = new CompletableFuture<>();
+        dbExecutor.execute(() -> {
+            PageCountExecutor.Binding previous = PageCountExecutor.bind(binding);
+            try {
+                future.complete(pageCountExecutor.page(PageRequest.of(0, 10),
+                        () -> {
+                            threads.add(Thread.currentThread().getName());
+                            return Arrays.asList("a");
+                        },
+                        () -> {
+                            threads.add(Thread.currentThread().getName());
+                            return 1L;
+                        }));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                PageCountExecutor.restore(previous);
+            }
+        });
+
+        assertThat(future.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(1);
+        assertThat(threads).hasSize(1);
+    }
+
+    private PageCountExecutor.Binding asyncBinding() throws NoSuchMethodException {
+        CountStrategy strategy = MemberRepositoryImpl.class.getMethod("findByAge", int.class, Pageable.class)
+                .getAnnotation(CountStrategy.class);
+        return new PageCountExecutor.Binding(strategy, "test");
+    }
+
+    @Test
+    public void estimatedCountsBounded() {
+        PageCountExecutor executor = new PageCountExecutor(Runnable::run, null, Duration.ofSeconds(5), 10, 0, 10);
+
+        // 조건마다 항목이 생겨도 maximumSize를 넘지 않음
+        for (int age = 0; age < 100; age++) {
+            executor.putEstimatedCount("totalCount(" + age + ")", age, 60);
+        }
+        assertThat(executor.estimatedCountSize()).isLessThanOrEqualTo(10);
+
+        // ttl이 지난 항목은 조회되지 않음
+        executor.putEstimatedCount("expired", 1, 0);
+        assertThat(executor.findEstimatedCount("expired")).isNull();
+    }
+
+    private boolean eventually(BooleanSupplier condition) {
+        for (int i = 0; i < 50; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            sleep(100);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
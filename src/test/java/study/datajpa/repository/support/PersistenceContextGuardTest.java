@@ -0,0 +1,167 @@
+package study.datajpa.repository.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "datajpa.persistence-context.warn-threshold=30",
+        "datajpa.persistence-context.clear-threshold=10"})
+@Transactional
+class PersistenceContextGuardTest {
+
+    @Autowired PersistenceContextGuard guard;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void autoClearInBatch() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(memberRepository.save(new Member("guard" + i, 10)).getId());
+        }
+        em.flush();
+        em.clear();
+
+        double before = meterRegistry.counter("jpa.persistence_context.auto_clear").count();
+        int[] maxManaged = new int[1];
+
+        guard.inBatch(10, () -> {
+            for (Long id : ids) {
+                Member member = memberRepository.findById(id).get();
+                member.setAge(20); // 다음 리포지토리 호출에서 clear 되기 전에 flush 되어야 함
+                maxManaged[0] = Math.max(maxManaged[0], guard.managedEntities());
+            }
+            return null;
+        });
+
+        double clears = meterRegistry.counter("jpa.persistence_context.auto_clear").count() - before;
+        System.out.println("clears = " + clears + ", maxManaged = " + maxManaged[0]);
+        assertThat(clears).isGreaterThanOrEqualTo(4);
+        assertThat(maxManaged[0]).isLessThanOrEqualTo(10);
+
+        // clear 전에 flush 했으므로 변경 내용이 유실되지 않음
+        em.flush();
+        em.clear();
+        assertThat(memberRepository.findByIds(ids)).extracting("age").containsOnly(20);
+    }
+
+    @Test
+    public void noClearOutsideBatch() {
+        for (int i = 0; i < 20; i++) {
+            memberRepository.save(new Member("guard" + i, 10));
+        }
+        double before = meterRegistry.counter("jpa.persistence_context.auto_clear").count();
+
+        memberRepository.findAll();
+
+        assertThat(meterRegistry.counter("jpa.persistence_context.auto_clear").count()).isEqualTo(before);
+        assertThat(guard.managedEntities()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    public void forEachMemberClearsBetweenChunks() {
+        for (int i = 0; i < 30; i++) {
+            memberRepository.save(new Member("each" + i, 10));
+        }
+        em.flush();
+        em.clear();
+
+        double before = meterRegistry.counter("jpa.persistence_context.auto_clear").count();
+        int[] maxManaged = new int[1];
+
+        // @BatchPersistenceContext(clear-threshold = 10) : 청크 5개씩 읽으므로 2청크마다 clear
+        long count = memberRepository.forEachMember(5, member -> {
+            if (member.getUsername().startsWith("each")) {
+                member.setAge(member.getAge() + 1);
+            }
+            maxManaged[0] = Math.max(maxManaged[0], guard.managedEntities());
+        });
+
+        double clears = meterRegistry.counter("jpa.persistence_context.auto_clear").count() - before;
+        assertThat(count).isGreaterThanOrEqualTo(30);
+        assertThat(clears).isGreaterThanOrEqualTo(2);
+        assertThat(maxManaged[0]).isLessThanOrEqualTo(10);
+
+        em.flush();
+        em.clear();
+        assertThat(memberRepository.findAll()).filteredOn(m -> m.getUsername().startsWith("each"))
+                .hasSize(30)
+                .extracting("age").containsOnly(11);
+    }
+
+    @Test
+    public void highWaterMarkPerTransaction() {
+        for (int i = 0; i < 20; i++) {
+            memberRepository.save(new Member("outer" + i, 10));
+        }
+        assertThat(guard.highWaterMark()).isGreaterThanOrEqualTo(20);
+
+        // REQUIRES_NEW는 다른 영속성 컨텍스트를 쓰므로 바깥 트랜잭션의 기록과 섞이지 않음
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int inner = requiresNew.execute(status -> {
+            memberRepository.save(new Member("inner", 10));
+            status.setRollbackOnly();
+            return guard.highWaterMark();
+        });
+
+        assertThat(inner).isEqualTo(1);
+        assertThat(guard.highWaterMark()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void warnOnlyForSingleCallLoad() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Member> saved = tx.execute(status -> {
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                members.add(new Member("single" + i, 10));
+            }
+            return memberRepository.saveAll(members);
+        });
+
+        try {
+            double exceededBefore = meterRegistry.counter("jpa.persistence_context.threshold.exceeded").count();
+            double clearsBefore = meterRegistry.counter("jpa.persistence_context.auto_clear").count();
+
+            // 쿼리 한 번으로 읽은 결과는 중간에 clear 할 수 없으므로 배치 구간이어도 경고만 남음
+            int managed = tx.execute(status -> guard.inBatch(10, () -> {
+                memberRepository.findAll();
+                return guard.managedEntities();
+            }));
+
+            assertThat(managed).isGreaterThanOrEqualTo(40);
+            assertThat(meterRegistry.counter("jpa.persistence_context.threshold.exceeded").count()).isEqualTo(exceededBefore + 1);
+            assertThat(meterRegistry.counter("jpa.persistence_context.auto_clear").count()).isEqualTo(clearsBefore);
+        } finally {
+            tx.executeWithoutResult(status -> memberRepository.deleteAllInBatch(saved));
+        }
+    }
+
+    @Test
+    public void inBatchRethrowsCheckedException() {
+        assertThatThrownBy(() -> guard.inBatch(10, () -> {
+            throw new IOException("batch failed");
+        })).isInstanceOf(IOException.class).hasMessage("batch failed");
+    }
+}
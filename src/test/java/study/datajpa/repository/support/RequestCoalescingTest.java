@@ -0,0 +1,101 @@
+package study.datajpa.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingTest {
+
+    @Test
+    public void singleFlight() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> singleFlight.execute(1L, id -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release); // 나머지 요청이 들어올 때까지 조회가 끝나지 않게 함
+            return "member" + id;
+        })));
+        started.await();
+        for (int i = 0; i < 7; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute(1L, id -> {
+                calls.incrementAndGet();
+                return "member" + id;
+            })));
+        }
+        // 나머지 7개 스레드가 실행 중인 조회를 기다리기 시작할 때까지 대기
+        while (executor.getActiveCount() < 8) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("member1");
+        }
+        assertThat(calls.get()).isEqualTo(1); // 동시에 들어온 8번의 조회가 DB 호출 1번으로 합쳐짐
+        assertThat(singleFlight.inFlight()).isZero();
+        executor.shutdown();
+    }
+
+    @Test
+    public void microBatch() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<Set<Long>> batches = new ArrayList<>();
+        Function<Set<Long>, Map<Long, String>> loader = ids -> {
+            synchronized (batches) {
+                batches.add(ids);
+            }
+            return ids.stream().filter(id -> id != 3L) // 3번은 없는 회원
+                    .collect(Collectors.toMap(Function.identity(), id -> "member" + id));
+        };
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(loader, Duration.ofMillis(50), 100, scheduler, scheduler);
+
+        CompletableFuture<String> first = batcher.submit(1L);
+        CompletableFuture<String> second = batcher.submit(2L);
+        CompletableFuture<String> duplicate = batcher.submit(1L);
+        CompletableFuture<String> missing = batcher.submit(3L);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("member1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("member2");
+        assertThat(duplicate).isSameAs(first);
+        assertThat(missing.get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(batches).hasSize(1); // in 쿼리 한 번
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        // maxBatchSize가 차면 window를 기다리지 않고 바로 실행
+        MicroBatcher<Long, String> small = new MicroBatcher<>(loader, Duration.ofSeconds(10), 2, scheduler, scheduler);
+        small.submit(10L);
+        assertThat(small.submit(11L).get(1, TimeUnit.SECONDS)).isEqualTo("member11");
+        scheduler.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
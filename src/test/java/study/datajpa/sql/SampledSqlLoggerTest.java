@@ -0,0 +1,93 @@
+package study.datajpa.sql;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SampledSqlLoggerTest {
+
+    @Autowired SampledSqlLogger sampledSqlLogger;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void aggregateByShape() {
+        sampledSqlLogger.summarize(); // 이전 테스트에서 모인 통계 제거
+
+        // 값만 다른 같은 SQL -> 하나로 집계
+        for (int i = 0; i < 5; i++) {
+            memberRepository.findUser("shape" + i, i);
+        }
+
+        List<SampledSqlLogger.ShapeStats> summary = sampledSqlLogger.summarize();
+        summary.forEach(s -> System.out.println(s.getCount() + " : " + s.getSql()));
+        assertThat(summary)
+                .filteredOn(s -> s.getSql().contains("where member0_.username=?"))
+                .extracting(SampledSqlLogger.ShapeStats::getCount)
+                .containsExactly(5L);
+        assertThat(sampledSqlLogger.summarize()).isEmpty(); // 요약 후 초기화
+    }
+
+    @Test
+    public void summarizeWhileRecording() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncSqlLogWriter writer = new AsyncSqlLogWriter(registry, 16);
+        SampledSqlLogger logger = new SampledSqlLogger(writer, true, 0, 1000, 20);
+
+        int threads = 4;
+        int perThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    logger.record("select " + (j % 3), 1_000, false);
+                }
+                done.countDown();
+            });
+        }
+
+        // 기록하는 도중에 계속 요약해도 실행 횟수가 유실되지 않아야 함
+        long summarized = 0;
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            summarized += count(logger.summarize());
+        }
+        summarized += count(logger.summarize());
+        summarized += count(logger.summarize()); // 제거된 SQL에 늦게 기록된 실행
+
+        assertThat(summarized).isEqualTo((long) threads * perThread);
+        executor.shutdown();
+        writer.destroy();
+    }
+
+    private static long count(List<SampledSqlLogger.ShapeStats> summary) {
+        return summary.stream().mapToLong(SampledSqlLogger.ShapeStats::getCount).sum();
+    }
+
+    @Test
+    public void dropWhenBufferIsFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncSqlLogWriter writer = new AsyncSqlLogWriter(registry, 1);
+
+        // 쓰는 스레드보다 빠르게 넣으면 버퍼가 넘치지만 호출한 스레드는 막히지 않음
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (writer.info("line" + i)) {
+                accepted++;
+            }
+        }
+        writer.destroy();
+
+        assertThat(accepted + registry.counter("sql.log.dropped").count()).isEqualTo(10_000);
+    }
+}